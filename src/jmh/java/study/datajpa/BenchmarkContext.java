@@ -0,0 +1,39 @@
+package study.datajpa;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//벤치마크용 컨텍스트. 외부 H2 대신 인메모리 H2 를 쓰고 SQL 로깅은 끈다
+public class BenchmarkContext{
+    public static ConfigurableApplicationContext start(String... properties){
+        return start(WebApplicationType.NONE , properties);
+    }
+
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType , String... properties){
+        return start(new Class<?>[0] , webApplicationType , properties);
+    }
+
+    //extraSources 의 빈이 같은 이름의 애플리케이션 빈을 덮어쓴다
+    public static ConfigurableApplicationContext start(Class<?>[] extraSources , WebApplicationType webApplicationType , String... properties){
+        //application.yml 보다 우선하도록 커맨드라인 인자로 넘긴다
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1" ,
+                "--spring.main.banner-mode=off" ,
+                "--logging.level.root=warn" ,
+                "--logging.level.org.hibernate.SQL=warn" ,
+                "--decorator.datasource.p6spy.enable-logging=false" ,
+                "--spring.main.allow-bean-definition-overriding=true"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(DataJpaApplication.class)
+                .sources(extraSources)
+                .web(webApplicationType)
+                .run(args.toArray(new String[0]));
+    }
+}
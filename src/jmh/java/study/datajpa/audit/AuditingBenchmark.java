@@ -0,0 +1,56 @@
+package study.datajpa.audit;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.BenchmarkContext;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//트랜잭션 하나에 회원 100 명을 insert 하는 처리량. legacy = 기존 감사 설정
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3 , time = 2)
+@Measurement(iterations = 5 , time = 2)
+@Fork(1)
+public class AuditingBenchmark{
+    private static final int MEMBERS_PER_TRANSACTION = 100;
+
+    @Param({"legacy" , "scoped" , "batched"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        Class<?>[] sources = "legacy".equals(mode) ? new Class<?>[]{LegacyAuditingConfig.class} : new Class<?>[0];
+        context = BenchmarkContext.start(sources , WebApplicationType.NONE ,
+                                         "audit.batched-timestamps=" + "batched".equals(mode));
+        memberRepository = context.getBean(MemberRepository.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear(){
+        memberRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public int insertMembers(){
+        List<Member> members = new ArrayList<>(MEMBERS_PER_TRANSACTION);
+        for (int i = 0; i < MEMBERS_PER_TRANSACTION; i++) {
+            members.add(new Member("member" + i , i));
+        }
+        return memberRepository.saveAllBatched(members , MEMBERS_PER_TRANSACTION);
+    }
+}
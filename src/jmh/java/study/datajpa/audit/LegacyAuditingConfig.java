@@ -0,0 +1,23 @@
+package study.datajpa.audit;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.auditing.CurrentDateTimeProvider;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.data.domain.AuditorAware;
+
+import java.util.Optional;
+import java.util.UUID;
+
+//비교 기준: 쓰기마다 UUID 를 만들고 LocalDateTime.now() 를 호출하던 기존 설정.
+//컴포넌트 스캔에 걸리지 않도록 @Configuration 없이 소스로만 등록한다
+public class LegacyAuditingConfig{
+    @Bean
+    public AuditorAware<String> auditorProvider(){
+        return () -> Optional.of(UUID.randomUUID().toString());
+    }
+
+    @Bean
+    public DateTimeProvider auditingDateTimeProvider(){
+        return CurrentDateTimeProvider.INSTANCE;
+    }
+}
@@ -0,0 +1,90 @@
+package study.datajpa.controller;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.BenchmarkContext;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//커넥션 풀을 2개로 시작해서 /members 와 /members/{id} 에 동시에 부하를 준다.
+//adaptive=true 면 AdaptivePoolSizer 가 대기 시간을 보고 풀을 키운다
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3 , time = 10)
+@Measurement(iterations = 3 , time = 5)
+@Fork(1)
+public class ConnectionPoolLoadBenchmark{
+    private static final int MEMBERS = 100;
+
+    @Param({"false" , "true"})
+    public boolean adaptive;
+
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        context = BenchmarkContext.start(new Class<?>[]{SlowJdbcListener.class} , WebApplicationType.SERVLET ,
+                                         "server.port=0" ,
+                                         "spring.jpa.properties.hibernate.cache.use_second_level_cache=false" ,
+                                         "spring.datasource.hikari.maximum-pool-size=2" ,
+                                         "spring.datasource.hikari.minimum-idle=1" ,
+                                         "datasource.pool.adaptive.enabled=" + adaptive ,
+                                         "datasource.pool.adaptive.interval-millis=500" ,
+                                         "datasource.pool.adaptive.min-size=2" ,
+                                         "datasource.pool.adaptive.max-size=32" ,
+                                         "async.repository-executor.core-pool-size=32" ,
+                                         "async.repository-executor.max-pool-size=32" ,
+                                         "async.repository-executor.queue-capacity=1000");
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("pool" + i , i));
+        }
+        memberRepository.saveAllBatched(members , MEMBERS);
+        ids = new ArrayList<>();
+        memberRepository.findAll().forEach(member -> ids.add(member.getId()));
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(32)
+    public byte[] findMember() throws IOException{
+        return get("/members/" + ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(32)
+    public byte[] list() throws IOException{
+        return get("/members?page=" + ThreadLocalRandom.current().nextInt(MEMBERS / 5));
+    }
+
+    private byte[] get(String path) throws IOException{
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        if(connection.getResponseCode() != 200){
+            throw new IllegalStateException("unexpected status " + connection.getResponseCode() + " for " + path);
+        }
+        try(InputStream body = connection.getInputStream()){
+            return body.readAllBytes();
+        }
+    }
+}
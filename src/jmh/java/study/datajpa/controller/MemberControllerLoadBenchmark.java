@@ -0,0 +1,78 @@
+package study.datajpa.controller;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.BenchmarkContext;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//쿼리마다 20ms 가 걸리는 DB 에서 서블릿 스레드를 8개로 줄이고 64개 클라이언트로 부하를 준다.
+//sync 는 서블릿 스레드에서 조회하는 /members2/{id}, async 는 repositoryExecutor 에서 조회하는 /members/{id}.
+//sync 쪽 findById 만 2차 캐시를 타지 않도록 2차 캐시를 끄고 양쪽 모두 쿼리 한 번으로 맞춘다
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3 , time = 10)
+@Measurement(iterations = 3 , time = 5)
+@Threads(64)
+@Fork(1)
+public class MemberControllerLoadBenchmark{
+    private static final int MEMBERS = 100;
+
+    @Param({"sync" , "async"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private List<Long> ids;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        context = BenchmarkContext.start(new Class<?>[]{SlowJdbcListener.class} , WebApplicationType.SERVLET ,
+                                         "server.port=0" ,
+                                         "spring.jpa.properties.hibernate.cache.use_second_level_cache=false" ,
+                                         "server.tomcat.threads.max=8" ,
+                                         "spring.datasource.hikari.maximum-pool-size=32" ,
+                                         "async.repository-executor.core-pool-size=32" ,
+                                         "async.repository-executor.max-pool-size=32" ,
+                                         "async.repository-executor.queue-capacity=1000");
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("load" + i , i));
+        }
+        memberRepository.saveAllBatched(members , MEMBERS);
+        ids = new ArrayList<>();
+        memberRepository.findAll().forEach(member -> ids.add(member.getId()));
+        String path = "async".equals(mode) ? "/members/" : "/members2/";
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + path;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] findMember() throws IOException{
+        Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        //java.net.http.HttpClient 는 셀렉터 스레드 하나가 병목이 되므로 keep-alive 되는 HttpURLConnection 을 쓴다
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + id).openConnection();
+        if(connection.getResponseCode() != 200){
+            throw new IllegalStateException("unexpected status " + connection.getResponseCode());
+        }
+        try(InputStream body = connection.getInputStream()){
+            return body.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package study.datajpa.controller;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.context.annotation.Bean;
+
+//느린 DB 를 흉내 내기 위해 모든 JDBC 실행 앞에 지연을 넣는다.
+//@Configuration 을 붙이면 컴포넌트 스캔에 걸리므로 BenchmarkContext 의 extraSources 로만 넘긴다
+public class SlowJdbcListener{
+    static final long DELAY_MILLIS = 20;
+
+    @Bean
+    public SimpleJdbcEventListener slowJdbcEventListener(){
+        return new SimpleJdbcEventListener(){
+            @Override
+            public void onBeforeAnyExecute(StatementInformation statementInformation){
+                try{
+                    Thread.sleep(DELAY_MILLIS);
+                }catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+}
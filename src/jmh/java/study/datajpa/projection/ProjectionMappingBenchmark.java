@@ -0,0 +1,65 @@
+package study.datajpa.projection;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.NestedClosedProjections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//DB 없이 행 ROWS 개를 NestedClosedProjections 로 바꾸는 비용. -prof gc 의 gc.alloc.rate.norm / ROWS 가 행당 할당량
+//proxy = Spring Data 가 엔티티 위에 만드는 프록시(중첩 프록시 포함) , compiled = ProjectionEngine 의 평평한 tuple
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3 , time = 2)
+@Measurement(iterations = 5 , time = 2)
+@Fork(1)
+public class ProjectionMappingBenchmark{
+    private static final int ROWS = 1000;
+
+    private final SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+    private CompiledProjection<NestedClosedProjections> compiled;
+    private List<Member> members;
+    private List<Object[]> tuples;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        compiled = new ProjectionEngine().compile(Member.class , NestedClosedProjections.class);
+        members = new ArrayList<>(ROWS);
+        tuples = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Team team = new Team("team" + i % 10);
+            members.add(new Member("member" + i , i , team));
+            //select 순서대로 채운다 (m.username 외에는 j0.name)
+            List<String> columns = compiled.columns();
+            Object[] tuple = new Object[columns.size()];
+            for (int c = 0; c < tuple.length; c++) {
+                tuple[c] = "m.username".equals(columns.get(c)) ? "member" + i : team.getName();
+            }
+            tuples.add(tuple);
+        }
+    }
+
+    @Benchmark
+    public void proxy(Blackhole blackhole){
+        for (Member member : members) {
+            NestedClosedProjections projection = projectionFactory.createProjection(NestedClosedProjections.class , member);
+            blackhole.consume(projection.getUsername());
+            blackhole.consume(projection.getTeam().getName());
+        }
+    }
+
+    @Benchmark
+    public void compiled(Blackhole blackhole){
+        for (Object[] tuple : tuples) {
+            NestedClosedProjections projection = compiled.map(tuple);
+            blackhole.consume(projection.getUsername());
+            blackhole.consume(projection.getTeam().getName());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package study.datajpa.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.BenchmarkContext;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput , Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3 , time = 2)
+@Measurement(iterations = 5 , time = 2)
+@Fork(1)
+public class MemberRepositoryBenchmark{
+    private static final int TEAMS = 10;
+    private static final int MEMBERS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        context = BenchmarkContext.start();
+        memberRepository = context.getBean(MemberRepository.class);
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < TEAMS; i++) {
+            teams.add(teamRepository.save(new Team("team" + i)));
+        }
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("member" + i , i % 100 , teams.get(i % TEAMS)));
+        }
+        memberRepository.saveAllBatched(members , 100);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> derivedQuery(){
+        return memberRepository.findByUsernameAndAgeGreaterThan("member500" , 10);
+    }
+
+    @Benchmark
+    public List<Member> jpqlQuery(){
+        return memberRepository.fiindUser("member500" , 0);
+    }
+
+    @Benchmark
+    public List<Member> fetchJoin(){
+        return memberRepository.findMemberFetchJoin();
+    }
+
+    @Benchmark
+    public List<Member> entityGraph(){
+        return memberRepository.findMemberEntityGraph();
+    }
+
+    @Benchmark
+    public String openProjection(){
+        return memberRepository.findProjectionsByUsername("member500").get(0).getUsername();
+    }
+
+    @Benchmark
+    public String nestedClosedProjection(){
+        return memberRepository.findProjections2ByUsername("member500" , NestedClosedProjections.class)
+                .get(0).getTeam().getName();
+    }
+
+    @Benchmark
+    public String compiledOpenProjection(){
+        return memberRepository.findProjectedByUsername("member500" , UsernameOnly.class).get(0).getUsername();
+    }
+
+    @Benchmark
+    public String compiledNestedProjection(){
+        return memberRepository.findProjectedByUsername("member500" , NestedClosedProjections.class)
+                .get(0).getTeam().getName();
+    }
+
+    @Benchmark
+    public String closedProjection(){
+        return memberRepository.findProjections2ByUsername("member500" , MemberProjection.class).get(0).getTeamName();
+    }
+
+    @Benchmark
+    public String compiledClosedProjection(){
+        return memberRepository.findProjectedByUsername("member500" , MemberProjection.class).get(0).getTeamName();
+    }
+
+    @Benchmark
+    public Page<MemberProjection> nativeProjectionPage(){
+        return memberRepository.findByNativeProjection(PageRequest.of(0 , 20));
+    }
+
+    @Benchmark
+    public Page<MemberProjection> mappedNativeProjectionPage(){
+        return memberRepository.findNativeProjectionPage(PageRequest.of(0 , 20));
+    }
+
+    @Benchmark
+    public long streamedNativeProjection(){
+        return transactionTemplate.execute(status -> {
+            try (Stream<MemberProjection> stream = memberRepository.streamNativeProjection(500)) {
+                return stream.filter(p -> p.getTeamName() != null).count();
+            }
+        });
+    }
+
+    @Benchmark
+    public List<Member> specification(){
+        return memberRepository.findAll(MemberSpec.username("member500").and(MemberSpec.teamName("team0")));
+    }
+
+    @Benchmark
+    public List<Member> compiledSpecification(){
+        return memberRepository.findAll(CompiledMemberSpec.where().username("member500").teamName("team0"));
+    }
+
+    @Benchmark
+    public Integer bulkAgePlus(){
+        //나이 90 이상만 대상으로 해서 매 호출마다 갱신 건수가 크게 변하지 않게 한다
+        return transactionTemplate.execute(status -> memberRepository.bulkagePlus(90));
+    }
+}
@@ -1,16 +1,20 @@
 package study.datajpa;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import study.datajpa.audit.AuditingDateTimeProvider;
+import study.datajpa.audit.TransactionScopedAuditorAware;
 
-import java.util.Optional;
+import java.time.Clock;
 import java.util.UUID;
 
 @SpringBootApplication
-@EnableJpaAuditing
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
 public class DataJpaApplication {
 
 	public static void main(String[] args) {
@@ -19,8 +23,17 @@ public class DataJpaApplication {
 
 	@Bean
 	public AuditorAware<String> auditorProvider(){
-		return ()->{
-			return Optional.of(UUID.randomUUID().toString());
-		};
+		return new TransactionScopedAuditorAware<>(() -> UUID.randomUUID().toString());
+	}
+
+	@Bean
+	public Clock clock(){
+		return Clock.systemDefaultZone();
+	}
+
+	@Bean
+	public DateTimeProvider auditingDateTimeProvider(Clock clock ,
+													 @Value("${audit.batched-timestamps:false}") boolean batchedTimestamps){
+		return new AuditingDateTimeProvider(clock , batchedTimestamps);
 	}
 }
@@ -0,0 +1,31 @@
+package study.datajpa.async;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import study.datajpa.monitoring.StatementCounter;
+
+//@Async("repositoryExecutor") 리포지토리 메서드가 서블릿 스레드 대신 이 풀에서 실행된다.
+//풀 크기는 커넥션 풀 크기를 넘겨도 커넥션을 기다릴 뿐이므로 hikari maximum-pool-size 와 함께 조정한다.
+//작업을 넘긴 스레드의 StatementCounter 로 세므로 N+1 감지와 repository.statements 에 비동기 조회도 잡힌다
+@Configuration
+@EnableAsync
+@EnableConfigurationProperties(RepositoryExecutorProperties.class)
+public class AsyncRepositoryConfig{
+    public static final String REPOSITORY_EXECUTOR = "repositoryExecutor";
+
+    @Bean(REPOSITORY_EXECUTOR)
+    public ThreadPoolTaskExecutor repositoryExecutor(RepositoryExecutorProperties properties , StatementCounter statementCounter){
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getCorePoolSize());
+        executor.setMaxPoolSize(properties.getMaxPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix(properties.getThreadNamePrefix());
+        executor.setTaskDecorator(statementCounter);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
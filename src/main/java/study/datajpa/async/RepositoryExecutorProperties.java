@@ -0,0 +1,16 @@
+package study.datajpa.async;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+//큐까지 가득 차면 TaskRejectedException 으로 바로 실패시킨다 (서블릿 스레드에서 대신 실행하지 않는다)
+@Getter
+@Setter
+@ConfigurationProperties("async.repository-executor")
+public class RepositoryExecutorProperties{
+    private int corePoolSize = 16;
+    private int maxPoolSize = 32;
+    private int queueCapacity = 500;
+    private String threadNamePrefix = "repository-";
+}
@@ -0,0 +1,30 @@
+package study.datajpa.audit;
+
+import org.springframework.data.auditing.DateTimeProvider;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAccessor;
+import java.util.Optional;
+
+//batched 모드면 한 트랜잭션에서 flush 되는 엔티티들이 같은 감사 시각을 공유한다
+public class AuditingDateTimeProvider implements DateTimeProvider{
+    private final Clock clock;
+    private final TransactionScopedValue<LocalDateTime> transactionTime;
+    private final boolean batched;
+
+    public AuditingDateTimeProvider(Clock clock , boolean batched){
+        this.clock = clock;
+        this.batched = batched;
+        this.transactionTime = new TransactionScopedValue<>(this :: currentTime);
+    }
+
+    @Override
+    public Optional<TemporalAccessor> getNow(){
+        return Optional.of(batched ? transactionTime.get() : currentTime());
+    }
+
+    private LocalDateTime currentTime(){
+        return LocalDateTime.now(clock);
+    }
+}
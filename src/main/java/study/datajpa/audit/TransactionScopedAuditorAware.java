@@ -0,0 +1,20 @@
+package study.datajpa.audit;
+
+import org.springframework.data.domain.AuditorAware;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+//등록자/수정자를 엔티티마다 구하지 않고 트랜잭션 당 한 번만 구한다
+public class TransactionScopedAuditorAware<T> implements AuditorAware<T>{
+    private final TransactionScopedValue<T> auditor;
+
+    public TransactionScopedAuditorAware(Supplier<T> auditorResolver){
+        this.auditor = new TransactionScopedValue<>(auditorResolver);
+    }
+
+    @Override
+    public Optional<T> getCurrentAuditor(){
+        return Optional.ofNullable(auditor.get());
+    }
+}
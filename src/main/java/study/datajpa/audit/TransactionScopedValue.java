@@ -0,0 +1,53 @@
+package study.datajpa.audit;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+//트랜잭션 당 한 번만 값을 만들고 트랜잭션이 끝나면 버린다. 트랜잭션 밖에서는 매번 새로 만든다
+//REQUIRES_NEW 로 바깥 트랜잭션이 보류되면 값도 같이 풀었다가 재개될 때 다시 묶어서 안쪽 트랜잭션은 자기 값을 만든다
+public class TransactionScopedValue<T>{
+    private final Supplier<T> supplier;
+
+    public TransactionScopedValue(Supplier<T> supplier){
+        this.supplier = supplier;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(){
+        if(!TransactionSynchronizationManager.isSynchronizationActive()){
+            return supplier.get();
+        }
+        T value = (T) TransactionSynchronizationManager.getResource(this);
+        if(value == null){
+            value = supplier.get();
+            TransactionSynchronizationManager.bindResource(this , value);
+            TransactionSynchronizationManager.registerSynchronization(new ValueSynchronization(value));
+        }
+        return value;
+    }
+
+    private class ValueSynchronization implements TransactionSynchronization{
+        private final T value;
+
+        ValueSynchronization(T value){
+            this.value = value;
+        }
+
+        @Override
+        public void suspend(){
+            TransactionSynchronizationManager.unbindResource(TransactionScopedValue.this);
+        }
+
+        @Override
+        public void resume(){
+            TransactionSynchronizationManager.bindResource(TransactionScopedValue.this , value);
+        }
+
+        @Override
+        public void afterCompletion(int status){
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionScopedValue.this);
+        }
+    }
+}
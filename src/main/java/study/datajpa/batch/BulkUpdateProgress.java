@@ -0,0 +1,16 @@
+package study.datajpa.batch;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class BulkUpdateProgress{
+    private final String jobId;
+    private final int chunkUpdated;
+    private final long processed;
+    private final long lastId;
+    private final boolean completed;
+}
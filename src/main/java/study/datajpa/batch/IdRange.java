@@ -0,0 +1,33 @@
+package study.datajpa.batch;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//[from, to] 양 끝을 포함하는 member_id 구간
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class IdRange{
+    private final long from;
+    private final long to;
+
+    public static List<IdRange> split(long min , long max , long rangeSize){
+        List<IdRange> ranges = new ArrayList<>();
+        for (long from = min; from <= max; from += rangeSize) {
+            ranges.add(new IdRange(from , Math.min(max , from + rangeSize - 1)));
+            if(from > Long.MAX_VALUE - rangeSize){
+                break;
+            }
+        }
+        return ranges;
+    }
+
+    @Override
+    public String toString(){
+        return "[" + from + ", " + to + "]";
+    }
+}
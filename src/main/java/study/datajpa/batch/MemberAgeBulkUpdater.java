@@ -0,0 +1,145 @@
+package study.datajpa.batch;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.BulkJobCheckpoint;
+import study.datajpa.entity.ChangeType;
+import study.datajpa.entity.Member;
+import study.datajpa.outbox.OutboxWriter;
+import study.datajpa.paging.TotalCountCache;
+import study.datajpa.repository.BulkJobCheckpointRepository;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+//update Member m set m.age = m.age + 1 where m.age >= :age 를 PK 순서로 chunkSize 건씩 나눠 청크마다 커밋한다.
+//진행 위치는 BulkJobCheckpoint 에 청크와 같은 트랜잭션으로 기록되므로 같은 jobId 로 다시 실행하면 이어서 처리한다.
+//청크 트랜잭션은 id 만 조회하므로 영속성 컨텍스트에 올라가는 엔티티가 없다. 2차 캐시는 청크가 커밋된 뒤 갱신한 회원만 비우고 count 캐시는 청크마다 비운다
+@Slf4j
+@Component
+public class MemberAgeBulkUpdater{
+    private final EntityManager em;
+    private final BulkJobCheckpointRepository checkpointRepository;
+    private final TotalCountCache totalCountCache;
+    private final OutboxWriter outboxWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultChunkSize;
+
+    public MemberAgeBulkUpdater(EntityManager em ,
+                                BulkJobCheckpointRepository checkpointRepository ,
+                                TotalCountCache totalCountCache ,
+                                OutboxWriter outboxWriter ,
+                                PlatformTransactionManager transactionManager ,
+                                @Value("${batch.bulk-update.chunk-size:1000}") int defaultChunkSize){
+        this.em = em;
+        this.checkpointRepository = checkpointRepository;
+        this.totalCountCache = totalCountCache;
+        this.outboxWriter = outboxWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    public BulkUpdateProgress agePlus(String jobId , int age){
+        return agePlus(jobId , age , defaultChunkSize , progress -> {});
+    }
+
+    public BulkUpdateProgress agePlus(String jobId , int age , int chunkSize , Consumer<BulkUpdateProgress> listener){
+        if(chunkSize < 1){
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        if(TransactionSynchronizationManager.isActualTransactionActive()){
+            throw new IllegalStateException("bulk update commits per chunk and must not run inside a transaction");
+        }
+        while(true){
+            Chunk chunk = transactionTemplate.execute(status -> runChunk(jobId , age , chunkSize));
+            if(!chunk.ids.isEmpty()){
+                totalCountCache.invalidate();
+                log.info("bulk age update {}: {}" , jobId , chunk.progress);
+            }
+            listener.accept(chunk.progress);
+            if(chunk.progress.isCompleted()){
+                return chunk.progress;
+            }
+        }
+    }
+
+    private Chunk runChunk(String jobId , int age , int chunkSize){
+        BulkJobCheckpoint checkpoint = checkpointRepository.findById(jobId)
+                .orElseGet(() -> checkpointRepository.save(new BulkJobCheckpoint(jobId)));
+        if(checkpoint.isCompleted()){
+            return new Chunk(Collections.emptyList() , progress(checkpoint , 0));
+        }
+        List<Long> ids = em.createQuery("select m.id from Member m " +
+                                                "where m.id > :lastId and m.age >= :age " +
+                                                "order by m.id" , Long.class)
+                .setParameter("lastId" , checkpoint.getLastId())
+                .setParameter("age" , age)
+                .setMaxResults(chunkSize)
+                .getResultList();
+        if(ids.isEmpty()){
+            checkpoint.complete();
+            return new Chunk(ids , progress(checkpoint , 0));
+        }
+        //조회 이후 나이가 바뀐 회원은 다시 확인해서 올리지 않는다. 남은 대상 행을 잠그고 그 id 목록으로만 갱신한 뒤 같은 목록을 outbox 에 남긴다
+        @SuppressWarnings("unchecked")
+        List<Number> rows = em.createNativeQuery("select member_id from member " +
+                                                         "where member_id in (:ids) and age >= :age " +
+                                                         "order by member_id for update")
+                .setParameter("ids" , ids)
+                .setParameter("age" , age)
+                .getResultList();
+        List<Long> locked = new ArrayList<>();
+        rows.forEach(id -> locked.add(id.longValue()));
+        int updated = 0;
+        if(!locked.isEmpty()){
+            //Hibernate 벌크 update 는 Member 2차 캐시 리전 전체를 비우므로 JDBC 로 갱신하고 커밋 후 이 청크의 id 만 캐시에서 뺀다
+            updated = em.unwrap(Session.class).doReturningWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "update member set age = age + 1, version = version + 1 " +
+                                "where member_id in (" + String.join(", " , Collections.nCopies(locked.size() , "?")) + ")")) {
+                    for (int i = 0; i < locked.size(); i++) {
+                        ps.setLong(i + 1 , locked.get(i));
+                    }
+                    return ps.executeUpdate();
+                }
+            });
+            evictAfterCommit(locked);
+            outboxWriter.captureBulk(Member.class , locked , ChangeType.UPDATED , "age" , "version");
+        }
+        checkpoint.advance(ids.get(ids.size() - 1) , updated);
+        return new Chunk(ids , progress(checkpoint , updated));
+    }
+
+    private void evictAfterCommit(List<Long> ids){
+        Cache cache = em.getEntityManagerFactory().getCache();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization(){
+            @Override
+            public void afterCommit(){
+                ids.forEach(id -> cache.evict(Member.class , id));
+            }
+        });
+    }
+
+    private static BulkUpdateProgress progress(BulkJobCheckpoint checkpoint , int chunkUpdated){
+        return new BulkUpdateProgress(checkpoint.getJobId() , chunkUpdated , checkpoint.getProcessed() ,
+                                      checkpoint.getLastId() , checkpoint.isCompleted());
+    }
+
+    @RequiredArgsConstructor
+    private static class Chunk{
+        private final List<Long> ids;
+        private final BulkUpdateProgress progress;
+    }
+}
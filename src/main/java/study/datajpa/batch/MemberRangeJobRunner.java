@@ -0,0 +1,146 @@
+package study.datajpa.batch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+//member_id 공간을 구간으로 나눠 구간마다 별도 트랜잭션으로 병렬 처리한다(데이터 보정, 재색인 등).
+//transformation 은 관리 상태의 Member 를 받아 수정하고, 변경은 구간 트랜잭션 커밋 시 flush 된다.
+//동시에 제출되는 구간은 parallelism * 2 개로 제한하고, 실패한 구간은 maxAttempts 까지 재시도한다
+@Slf4j
+@Component
+public class MemberRangeJobRunner{
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final RangeJobOptions defaultOptions;
+
+    public MemberRangeJobRunner(EntityManager em ,
+                                PlatformTransactionManager transactionManager ,
+                                MeterRegistry meterRegistry ,
+                                @Value("${batch.range-job.range-size:1000}") long rangeSize ,
+                                @Value("${batch.range-job.parallelism:4}") int parallelism ,
+                                @Value("${batch.range-job.max-attempts:3}") int maxAttempts){
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.defaultOptions = new RangeJobOptions(rangeSize , parallelism , maxAttempts);
+    }
+
+    public RangeJobResult run(String jobName , Consumer<Member> transformation){
+        return run(jobName , defaultOptions , transformation);
+    }
+
+    public RangeJobResult run(String jobName , RangeJobOptions options , Consumer<Member> transformation){
+        Object[] minMax = transactionTemplate.execute(status -> em.createQuery("select min(m.id), max(m.id) from Member m" , Object[].class)
+                .getSingleResult());
+        if(minMax == null || minMax[0] == null){
+            return new RangeJobResult(jobName , 0 , 0 , Collections.emptyList() , Duration.ZERO);
+        }
+        List<IdRange> ranges = IdRange.split((Long) minMax[0] , (Long) minMax[1] , options.getRangeSize());
+        return run(jobName , ranges , options , transformation);
+    }
+
+    public RangeJobResult run(String jobName , List<IdRange> ranges , RangeJobOptions options , Consumer<Member> transformation){
+        long start = System.nanoTime();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(options.getParallelism() ,
+                                                                 runnable -> new Thread(runnable , jobName + "-" + threadNumber.incrementAndGet()));
+        Semaphore inFlight = new Semaphore(options.getParallelism() * 2);
+        AtomicLong rows = new AtomicLong();
+        ConcurrentLinkedQueue<IdRange> failed = new ConcurrentLinkedQueue<>();
+        try{
+            for (IdRange range : ranges) {
+                inFlight.acquire();
+                executor.execute(() -> {
+                    try{
+                        rows.addAndGet(processWithRetry(jobName , range , options.getMaxAttempts() , transformation));
+                    }catch(RuntimeException e){
+                        log.error("range job {} failed on {}" , jobName , range , e);
+                        failed.add(range);
+                    }finally{
+                        inFlight.release();
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE , TimeUnit.NANOSECONDS);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            throw new IllegalStateException("range job " + jobName + " interrupted" , e);
+        }
+        RangeJobResult result = new RangeJobResult(jobName , ranges.size() , rows.get() , new ArrayList<>(failed) ,
+                                                   Duration.ofNanos(System.nanoTime() - start));
+        log.info("range job finished: {}" , result);
+        return result;
+    }
+
+    private long processWithRetry(String jobName , IdRange range , int maxAttempts , Consumer<Member> transformation){
+        for (int attempt = 1; ; attempt++) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try{
+                Integer processed = transactionTemplate.execute(status -> process(range , transformation));
+                sample.stop(rangeTimer(jobName , "success"));
+                Counter.builder("batch.range.rows").tag("job" , jobName).register(meterRegistry).increment(processed);
+                return processed;
+            }catch(RuntimeException e){
+                sample.stop(rangeTimer(jobName , "failure"));
+                if(attempt >= maxAttempts){
+                    throw e;
+                }
+                log.warn("range job {} attempt {} failed on {}, retrying: {}" , jobName , attempt , range , e.getMessage());
+                sleep(RETRY_BACKOFF_MILLIS * attempt);
+            }
+        }
+    }
+
+    private int process(IdRange range , Consumer<Member> transformation){
+        List<Member> members = em.createQuery("select m from Member m where m.id between :from and :to order by m.id" , Member.class)
+                .setParameter("from" , range.getFrom())
+                .setParameter("to" , range.getTo())
+                .getResultList();
+        for (Member member : members) {
+            transformation.accept(member);
+        }
+        return members.size();
+    }
+
+    private Timer rangeTimer(String jobName , String outcome){
+        return Timer.builder("batch.range")
+                .tag("job" , jobName)
+                .tag("outcome" , outcome)
+                .register(meterRegistry);
+    }
+
+    private static void sleep(long millis){
+        try{
+            Thread.sleep(millis);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
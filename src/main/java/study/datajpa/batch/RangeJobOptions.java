@@ -0,0 +1,19 @@
+package study.datajpa.batch;
+
+import lombok.Getter;
+
+@Getter
+public class RangeJobOptions{
+    private final long rangeSize;
+    private final int parallelism;
+    private final int maxAttempts;
+
+    public RangeJobOptions(long rangeSize , int parallelism , int maxAttempts){
+        if(rangeSize < 1 || parallelism < 1 || maxAttempts < 1){
+            throw new IllegalArgumentException("rangeSize, parallelism and maxAttempts must be positive");
+        }
+        this.rangeSize = rangeSize;
+        this.parallelism = parallelism;
+        this.maxAttempts = maxAttempts;
+    }
+}
@@ -0,0 +1,24 @@
+package study.datajpa.batch;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.List;
+
+//failedRanges 는 재시도까지 실패한 구간. MemberRangeJobRunner.run(jobName, failedRanges, ...) 로 다시 돌릴 수 있다
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class RangeJobResult{
+    private final String jobName;
+    private final int ranges;
+    private final long rows;
+    private final List<IdRange> failedRanges;
+    private final Duration elapsed;
+
+    public boolean isSuccess(){
+        return failedRanges.isEmpty();
+    }
+}
@@ -0,0 +1,56 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class CacheStatisticsController{
+    private final EntityManagerFactory emf;
+
+    @GetMapping("/cache/stats")
+    public Map<String, Object> stats(){
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("secondLevel" , counts(statistics.getSecondLevelCacheHitCount() ,
+                                          statistics.getSecondLevelCacheMissCount() ,
+                                          statistics.getSecondLevelCachePutCount()));
+        result.put("queryCache" , counts(statistics.getQueryCacheHitCount() ,
+                                         statistics.getQueryCacheMissCount() ,
+                                         statistics.getQueryCachePutCount()));
+        result.put("queryPlanCache" , counts(statistics.getQueryPlanCacheHitCount() ,
+                                             statistics.getQueryPlanCacheMissCount()));
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(regionName);
+            Map<String, Object> regionCounts = counts(region.getHitCount() , region.getMissCount() , region.getPutCount());
+            regionCounts.put("size" , region.getElementCountInMemory());
+            regions.put(regionName , regionCounts);
+        }
+        result.put("regions" , regions);
+        return result;
+    }
+
+    private static Map<String, Object> counts(long hit , long miss , long put){
+        Map<String, Object> counts = counts(hit , miss);
+        counts.put("put" , put);
+        return counts;
+    }
+
+    private static Map<String, Object> counts(long hit , long miss){
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("hit" , hit);
+        counts.put("miss" , miss);
+        long total = hit + miss;
+        counts.put("hitRatio" , total == 0 ? 0.0 : (double) hit / total);
+        return counts;
+    }
+}
@@ -1,42 +1,146 @@
 package study.datajpa.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.loader.BatchEntityLoader;
+import study.datajpa.repository.CursorSlice;
+import study.datajpa.repository.InvalidCursorException;
 import study.datajpa.repository.MemberRepository;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController{
+    private static final int MAX_CURSOR_SIZE = 2000;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final int INSERT_BATCH_SIZE = 100;
     private final MemberRepository memberRepository;
+    private final BatchEntityLoader<Member, Long> memberLoader;
+    private final BatchEntityLoader<Team, Long> teamLoader;
+    private final ObjectMapper objectMapper;
 
+    //동시에 들어온 요청의 id 를 모아 한 번에 조회한다. 조회는 repositoryExecutor 에서 실행되고 서블릿 스레드는 바로 반환된다.
+    //없는 id 는 404
     @GetMapping("/members/{id}")
-    public String findMember(@PathVariable("id") Long id){
-        Member member = memberRepository.findById(id).get();
-        return member.getUsername();
+    public CompletableFuture<String> findMember(@PathVariable("id") Long id){
+        return memberLoader.load(id)
+                .thenApply(member -> member.orElseThrow(() -> new MemberNotFoundException(id)).getUsername());
+    }
+    //회원의 팀도 동시에 들어온 요청끼리 모아 조회한다. 팀 id 는 지연 로딩 프록시에서 초기화 없이 꺼낸다. 팀이 없으면 404
+    @GetMapping("/members/{id}/team")
+    public CompletableFuture<String> findMemberTeam(@PathVariable("id") Long id){
+        return memberLoader.load(id)
+                .thenApply(member -> member.orElseThrow(() -> new MemberNotFoundException(id)).getTeam())
+                .thenCompose(team -> {
+                    if(team == null){
+                        throw new TeamNotFoundException(id);
+                    }
+                    return teamLoader.load(team.getId());
+                })
+                .thenApply(team -> team.orElseThrow(() -> new TeamNotFoundException(id)).getName());
     }
     @GetMapping("/members2/{id}")
     public String findMember2(@PathVariable("id") Member member){
         return member.getUsername();
     }
     @GetMapping("/members")
-    public Page<MemberDto> list(@PageableDefault(size = 5) Pageable pageable){
-        return memberRepository.findAll(pageable)
+    public CompletableFuture<Page<MemberDto>> list(@PageableDefault(size = 5) Pageable pageable){
+        return memberRepository.findMemberDtoPageAsync(pageable);
+    }
+    @GetMapping(value = "/members", params = "cursor")
+    public CursorSlice<MemberDto> listByCursor(@RequestParam("cursor") String cursor ,
+                                               @RequestParam(value = "size", defaultValue = "5") int size){
+        int limit = Math.max(1 , Math.min(size , MAX_CURSOR_SIZE));
+        return memberRepository.findByCursor(cursor , limit)
                 .map(MemberDto :: new);
     }
 
+    //전체 회원을 힙에 올리지 않고 커서로 읽으면서 바로 응답 스트림에 쓴다
+    @GetMapping("/members/export")
+    @Transactional(readOnly = true)
+    public void export(@RequestParam(value = "format", defaultValue = "ndjson") String format ,
+                       HttpServletResponse response) throws IOException{
+        boolean csv = "csv".equalsIgnoreCase(format);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream() , StandardCharsets.UTF_8));
+        if(csv){
+            writer.write("id,username,teamName\n");
+        }
+        try(Stream<MemberDto> members = memberRepository.streamMemberDto(EXPORT_FETCH_SIZE)){
+            Iterator<MemberDto> it = members.iterator();
+            while(it.hasNext()){
+                MemberDto dto = it.next();
+                if(csv){
+                    writer.write(dto.getId() + "," + csvValue(dto.getUsername()) + "," + csvValue(dto.getTeamName()) + "\n");
+                }else{
+                    writer.write(objectMapper.writeValueAsString(dto));
+                    writer.write('\n');
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    //repositoryExecutor 의 큐가 가득 찬 경우
+    @ExceptionHandler(TaskRejectedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public void rejected(){
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public void badRequest(){
+    }
+
+    @ExceptionHandler({MemberNotFoundException.class , TeamNotFoundException.class})
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public void notFound(){
+    }
+
+    private static String csvValue(String value){
+        if(value == null){
+            return "";
+        }
+        if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0){
+            return value;
+        }
+        return '"' + value.replace("\"" , "\"\"") + '"';
+    }
+
     //@PostConstruct
     public void init(){
+        List<Member> members = new ArrayList<>();
         for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("user"+i,i));
+            members.add(new Member("user"+i,i));
         }
+        memberRepository.saveAllBatched(members , INSERT_BATCH_SIZE);
     }
 }
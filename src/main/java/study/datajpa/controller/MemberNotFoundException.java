@@ -0,0 +1,8 @@
+package study.datajpa.controller;
+
+//없는 회원 id (/members/{id} 의 404)
+public class MemberNotFoundException extends RuntimeException{
+    public MemberNotFoundException(Long id){
+        super("member not found: " + id);
+    }
+}
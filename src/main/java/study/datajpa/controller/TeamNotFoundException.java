@@ -0,0 +1,8 @@
+package study.datajpa.controller;
+
+//회원에 팀이 없거나 팀이 지워진 경우 (/members/{id}/team 의 404)
+public class TeamNotFoundException extends RuntimeException{
+    public TeamNotFoundException(Long memberId){
+        super("team not found for member: " + memberId);
+    }
+}
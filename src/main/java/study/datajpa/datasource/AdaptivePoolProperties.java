@@ -0,0 +1,19 @@
+package study.datajpa.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties("datasource.pool.adaptive")
+public class AdaptivePoolProperties{
+    private boolean enabled;
+    private int minSize = 5;
+    private int maxSize = 50;
+    private int step = 2;
+    //구간 평균 커넥션 획득 대기가 이보다 길거나 대기 스레드가 있으면 늘린다
+    private long targetWaitMillis = 5;
+    //사용 중인 커넥션이 절반 미만인 구간이 이만큼 이어지면 줄인다
+    private int shrinkAfterIdleChecks = 3;
+}
@@ -0,0 +1,92 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//풀마다 직전 점검 이후의 평균 커넥션 획득 대기(hikaricp.connections.acquire)와 대기 스레드 수를 보고 maximumPoolSize 를 조정한다.
+//줄일 때는 maximumPoolSize 만 낮추고, 넘치는 유휴 커넥션은 Hikari housekeeper 가 idleTimeout 뒤에 정리한다(minimumIdle 이 작아야 한다)
+@Slf4j
+public class AdaptivePoolSizer{
+    private final Map<String, HikariDataSource> pools;
+    private final MeterRegistry meterRegistry;
+    private final AdaptivePoolProperties properties;
+    private final Map<String, PoolState> states = new LinkedHashMap<>();
+
+    public AdaptivePoolSizer(Map<String, HikariDataSource> pools , MeterRegistry meterRegistry , AdaptivePoolProperties properties){
+        this.pools = Collections.unmodifiableMap(new LinkedHashMap<>(pools));
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        for (String name : pools.keySet()) {
+            states.put(name , new PoolState());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.pool.adaptive.interval-millis:10000}")
+    public synchronized void adjust(){
+        pools.forEach((name , dataSource) -> {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            if(pool == null){
+                //아직 첫 커넥션을 얻기 전
+                return;
+            }
+            PoolState state = states.get(name);
+            HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+            int current = config.getMaximumPoolSize();
+            int next = nextSize(state , current , averageWaitMillis(name , state) ,
+                                pool.getThreadsAwaitingConnection() , pool.getActiveConnections());
+            if(next != current){
+                if(config.getMinimumIdle() > next){
+                    config.setMinimumIdle(next);
+                }
+                config.setMaximumPoolSize(next);
+                log.info("resized connection pool {} from {} to {}" , name , current , next);
+            }
+        });
+    }
+
+    int nextSize(PoolState state , int current , double averageWaitMillis , int pending , int active){
+        if(averageWaitMillis > properties.getTargetWaitMillis() || pending > 0){
+            state.idleChecks = 0;
+            return Math.min(properties.getMaxSize() , current + properties.getStep());
+        }
+        if(active * 2 < current){
+            if(++state.idleChecks >= properties.getShrinkAfterIdleChecks()){
+                state.idleChecks = 0;
+                return Math.max(properties.getMinSize() , current - properties.getStep());
+            }
+            return current;
+        }
+        state.idleChecks = 0;
+        return current;
+    }
+
+    private double averageWaitMillis(String name , PoolState state){
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool" , name).timer();
+        if(acquire == null){
+            return 0;
+        }
+        long count = acquire.count();
+        double totalMillis = acquire.totalTime(TimeUnit.MILLISECONDS);
+        long deltaCount = count - state.lastCount;
+        double deltaMillis = totalMillis - state.lastTotalMillis;
+        state.lastCount = count;
+        state.lastTotalMillis = totalMillis;
+        return deltaCount == 0 ? 0 : deltaMillis / deltaCount;
+    }
+
+    static class PoolState{
+        private long lastCount;
+        private double lastTotalMillis;
+        private int idleChecks;
+    }
+}
@@ -0,0 +1,46 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//라우팅을 쓰면 primary 와 복제본 풀 모두, 아니면 spring.datasource 풀 하나를 조정한다
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(AdaptivePoolProperties.class)
+@ConditionalOnProperty(prefix = "datasource.pool.adaptive" , name = "enabled" , havingValue = "true")
+public class AdaptivePoolSizingConfig{
+
+    @Bean
+    public AdaptivePoolSizer adaptivePoolSizer(DataSource dataSource ,
+                                               ObjectProvider<RoutingDataSources> routingDataSources ,
+                                               MeterRegistry meterRegistry ,
+                                               AdaptivePoolProperties properties){
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        RoutingDataSources routing = routingDataSources.getIfAvailable();
+        if(routing != null){
+            addPool(pools , routing.getPrimary());
+            routing.getReplicas().values().forEach(replica -> addPool(pools , replica));
+        }else{
+            addPool(pools , dataSource);
+        }
+        return new AdaptivePoolSizer(pools , meterRegistry , properties);
+    }
+
+    private static void addPool(Map<String, HikariDataSource> pools , DataSource dataSource){
+        HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource , HikariDataSource.class);
+        if(hikari != null){
+            pools.put(hikari.getPoolName() , hikari);
+        }
+    }
+}
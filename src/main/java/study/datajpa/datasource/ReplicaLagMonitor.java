@@ -0,0 +1,48 @@
+package study.datajpa.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//주기적으로 복제본 지연을 재서 maxLag 를 넘거나 확인에 실패한 복제본은 라우팅에서 뺀다
+@Slf4j
+public class ReplicaLagMonitor{
+    private final Map<String, DataSource> replicas;
+    private final ReplicaLagProbe probe;
+    private final Duration maxLag;
+    private final Map<String, Boolean> usable = new ConcurrentHashMap<>();
+
+    public ReplicaLagMonitor(Map<String, DataSource> replicas , ReplicaLagProbe probe , Duration maxLag){
+        this.replicas = replicas;
+        this.probe = probe;
+        this.maxLag = maxLag;
+    }
+
+    //아직 확인 전인 복제본은 쓸 수 있는 것으로 본다
+    public boolean isUsable(String key){
+        return usable.getOrDefault(key , Boolean.TRUE);
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.routing.lag-check-interval-millis:5000}")
+    public void refresh(){
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            String key = replica.getKey();
+            boolean ok;
+            try{
+                Duration lag = probe.lagOf(key , replica.getValue());
+                ok = lag.compareTo(maxLag) <= 0;
+                if(!ok){
+                    log.warn("replica {} lag {} exceeds {}, routing reads to other replicas or primary" , key , lag , maxLag);
+                }
+            }catch(Exception e){
+                log.warn("replica {} lag check failed: {}" , key , e.getMessage());
+                ok = false;
+            }
+            usable.put(key , ok);
+        }
+    }
+}
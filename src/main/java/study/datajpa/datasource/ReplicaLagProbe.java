@@ -0,0 +1,24 @@
+package study.datajpa.datasource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+//복제본의 복제 지연을 잰다. DB 마다 방법이 달라서 빈으로 바꿔 끼운다
+@FunctionalInterface
+public interface ReplicaLagProbe{
+    Duration lagOf(String key , DataSource replica) throws SQLException;
+
+    //복제 지연을 알 수 없는 DB(H2 등)용. 접속만 확인하고 지연은 0 으로 본다
+    static ReplicaLagProbe connectionCheck(){
+        return (key , replica) -> {
+            try(Connection connection = replica.getConnection()){
+                if(!connection.isValid(1)){
+                    throw new SQLException("replica " + key + " is not valid");
+                }
+            }
+            return Duration.ZERO;
+        };
+    }
+}
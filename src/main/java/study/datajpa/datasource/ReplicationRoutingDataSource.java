@@ -0,0 +1,47 @@
+package study.datajpa.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//읽기 전용 트랜잭션은 복제본으로 라운드로빈, 나머지는 primary 로 보낸다.
+//지연이 큰 복제본은 건너뛰고 쓸 수 있는 복제본이 없으면 primary 로 보낸다.
+//트랜잭션 속성이 정해진 뒤에 커넥션을 얻어야 하므로 LazyConnectionDataSourceProxy 로 감싸서 쓴다
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource{
+    public static final String PRIMARY = "primary";
+
+    private final List<String> replicaKeys;
+    private final ReplicaLagMonitor lagMonitor;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicationRoutingDataSource(DataSource primary , Map<String, DataSource> replicas , ReplicaLagMonitor lagMonitor){
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY , primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.replicaKeys = new ArrayList<>(replicas.keySet());
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey(){
+        if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicaKeys.isEmpty()){
+            return PRIMARY;
+        }
+        int size = replicaKeys.size();
+        int start = Math.floorMod(next.getAndIncrement() , size);
+        for (int i = 0; i < size; i++) {
+            String key = replicaKeys.get((start + i) % size);
+            if(lagMonitor.isUsable(key)){
+                return key;
+            }
+        }
+        return PRIMARY;
+    }
+}
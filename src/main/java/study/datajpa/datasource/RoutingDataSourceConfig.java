@@ -0,0 +1,91 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//datasource.routing.enabled=true 일 때만 spring.datasource 를 primary 로, datasource.routing.replicas 를 복제본으로 쓴다
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+@ConditionalOnProperty(prefix = "datasource.routing" , name = "enabled" , havingValue = "true")
+public class RoutingDataSourceConfig{
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ReplicaLagProbe replicaLagProbe(){
+        return ReplicaLagProbe.connectionCheck();
+    }
+
+    @Bean
+    public RoutingDataSources routingDataSources(DataSourceProperties dataSourceProperties ,
+                                                 RoutingDataSourceProperties properties ,
+                                                 Environment environment ,
+                                                 ObjectProvider<MeterRegistry> meterRegistry){
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari" , Bindable.ofInstance(primary));
+        primary.setPoolName(ReplicationRoutingDataSource.PRIMARY);
+        //풀들이 빈이 아니라서 스프링 부트가 hikaricp.* 메트릭을 붙이지 않으므로 직접 붙인다(풀이 시작되기 전에 설정해야 한다)
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if(registry != null){
+            primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<RoutingDataSourceProperties.Replica> replicaProperties = properties.getReplicas();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            RoutingDataSourceProperties.Replica replica = replicaProperties.get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setLeakDetectionThreshold(replica.getLeakDetectionThreshold().toMillis());
+            dataSource.setReadOnly(true);
+            if(registry != null){
+                dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            }
+            replicas.put(dataSource.getPoolName() , dataSource);
+        }
+        return new RoutingDataSources(primary , replicas);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(RoutingDataSources routingDataSources ,
+                                               ReplicaLagProbe replicaLagProbe ,
+                                               RoutingDataSourceProperties properties){
+        return new ReplicaLagMonitor(routingDataSources.getReplicas() , replicaLagProbe , properties.getMaxLag());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoutingDataSources routingDataSources , ReplicaLagMonitor replicaLagMonitor){
+        ReplicationRoutingDataSource routing = new ReplicationRoutingDataSource(routingDataSources.getPrimary() ,
+                                                                                routingDataSources.getReplicas() ,
+                                                                                replicaLagMonitor);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
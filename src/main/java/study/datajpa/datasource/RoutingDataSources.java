@@ -0,0 +1,35 @@
+package study.datajpa.datasource;
+
+import lombok.Getter;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//라우팅 대상 풀들은 DataSource 빈으로 등록하지 않는다(p6spy 이중 래핑 방지). 대신 종료는 여기서 한다
+@Getter
+public class RoutingDataSources implements DisposableBean{
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+
+    public RoutingDataSources(DataSource primary , Map<String, DataSource> replicas){
+        this.primary = primary;
+        this.replicas = Collections.unmodifiableMap(new LinkedHashMap<>(replicas));
+    }
+
+    @Override
+    public void destroy() throws Exception{
+        for (DataSource replica : replicas.values()) {
+            close(replica);
+        }
+        close(primary);
+    }
+
+    private static void close(DataSource dataSource) throws Exception{
+        if(dataSource instanceof AutoCloseable){
+            ((AutoCloseable) dataSource).close();
+        }
+    }
+}
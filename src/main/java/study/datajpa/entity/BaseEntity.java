@@ -7,13 +7,15 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import study.datajpa.paging.CountInvalidationListener;
 
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class , CountInvalidationListener.class})
 @MappedSuperclass
 @Getter
 public class BaseEntity{
@@ -31,4 +33,8 @@ public class BaseEntity{
     @LastModifiedBy
     private String lastModifiedBy;
 
+    //낙관적 락. 벌크 update 는 버전을 직접 올려야 한다
+    @Version
+    private Long version;
+
 }
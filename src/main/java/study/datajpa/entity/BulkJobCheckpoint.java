@@ -0,0 +1,33 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+//청크 단위 벌크 작업의 진행 위치. 청크와 같은 트랜잭션에서 갱신되므로 중단 후 이어서 실행할 수 있다
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class BulkJobCheckpoint{
+    @Id
+    private String jobId;
+    private long lastId;
+    private long processed;
+    private boolean completed;
+
+    public BulkJobCheckpoint(String jobId){
+        this.jobId = jobId;
+    }
+
+    public void advance(long lastId , int count){
+        this.lastId = lastId;
+        this.processed += count;
+    }
+
+    public void complete(){
+        this.completed = true;
+    }
+}
@@ -0,0 +1,5 @@
+package study.datajpa.entity;
+
+public enum ChangeType{
+    CREATED, UPDATED, DELETED, UPSERTED
+}
@@ -6,12 +6,15 @@ import javax.persistence.Column;
 import javax.persistence.MappedSuperclass;
 import javax.persistence.PrePersist;
 import javax.persistence.PreUpdate;
+import java.time.Clock;
 import java.time.LocalDateTime;
 
 @MappedSuperclass
 @Getter
 
 public class JpaBaseEntity{
+    //LocalDateTime.now() 는 호출마다 기본 타임존을 다시 조회하므로 Clock 을 재사용한다
+    private static final Clock CLOCK = Clock.systemDefaultZone();
 
     @Column(updatable = false)
     private LocalDateTime createdDate;
@@ -19,12 +22,12 @@ public class JpaBaseEntity{
 
     @PrePersist
     public void prePersist(){
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = LocalDateTime.now(CLOCK);
         this.createdDate=now;
         this.updatedDate=now;
     }
     @PreUpdate
     public void preUpdate(){
-        this.updatedDate = LocalDateTime.now();
+        this.updatedDate = LocalDateTime.now(CLOCK);
     }
 }
@@ -1,6 +1,8 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
@@ -9,13 +11,18 @@ import javax.persistence.*;
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id","username","age"})
+@Table(indexes = @Index(name = "idx_member_username_id" , columnList = "username, member_id"))
+@SequenceGenerator(name = "member_seq_generator" , sequenceName = "member_seq" , allocationSize = 50)
 @NamedQuery(
         name="Member.findByUsername",
-        query = "select m from Member m where m.username = :username"
+        query = "select m from Member m where m.username = :username",
+        hints = @QueryHint(name = "org.hibernate.cacheable" , value = "true")
 )
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE , region = "member")
 public class Member extends BaseEntity{
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE , generator = "member_seq_generator")
     @Column(name = "member_id")
     private Long id;
     private String username;
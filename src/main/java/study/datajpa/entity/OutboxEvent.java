@@ -0,0 +1,31 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+//Member/Team/Item 변경 기록. 변경과 같은 트랜잭션에서 JDBC 로 insert 되고 OutboxRelay 가 발행한 뒤 지운다.
+//id 는 insert 순서이며 같은 엔티티의 변경은 행 잠금 때문에 커밋 순서와 id 순서가 같다
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "outbox_event")
+public class OutboxEvent{
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false , length = 50)
+    private String aggregateType;
+    @Column(nullable = false)
+    private String aggregateId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false , length = 20)
+    private ChangeType changeType;
+    //UPDATED 일 때 바뀐 속성 이름 (쉼표 구분)
+    private String changedProperties;
+    @Column(nullable = false)
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,140 @@
+package study.datajpa.loader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskDecorator;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+//window 안에 들어온 load(id) 를 모아 batchFunction 한 번(where id in (...))으로 조회하고 결과를 id 별로 나눠 준다.
+//같은 id 는 같은 future 를 공유하고, maxBatchSize 가 차면 window 를 기다리지 않고 바로 조회한다.
+//조회 결과는 호출한 쪽 영속성 컨텍스트와 무관한 준영속 엔티티다.
+//window 가 지나서 보내는 배치는 배치를 연 호출 스레드의 taskDecorator 로 감싸서 보낸다 (요청별 StatementCounter 등)
+@Slf4j
+public class BatchEntityLoader<T, ID>{
+    private final String name;
+    private final Function<Collection<ID>, ? extends Iterable<T>> batchFunction;
+    private final Function<T, ID> idFunction;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final TaskDecorator taskDecorator;
+
+    private Map<ID, CompletableFuture<Optional<T>>> pending = new LinkedHashMap<>();
+
+    public BatchEntityLoader(String name ,
+                             Function<Collection<ID>, ? extends Iterable<T>> batchFunction ,
+                             Function<T, ID> idFunction ,
+                             ScheduledExecutorService scheduler ,
+                             Executor executor ,
+                             Duration window ,
+                             int maxBatchSize){
+        this(name , batchFunction , idFunction , scheduler , executor , window , maxBatchSize , runnable -> runnable);
+    }
+
+    public BatchEntityLoader(String name ,
+                             Function<Collection<ID>, ? extends Iterable<T>> batchFunction ,
+                             Function<T, ID> idFunction ,
+                             ScheduledExecutorService scheduler ,
+                             Executor executor ,
+                             Duration window ,
+                             int maxBatchSize ,
+                             TaskDecorator taskDecorator){
+        if(maxBatchSize < 1){
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.name = name;
+        this.batchFunction = batchFunction;
+        this.idFunction = idFunction;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.taskDecorator = taskDecorator;
+    }
+
+    public CompletableFuture<Optional<T>> load(ID id){
+        Objects.requireNonNull(id , "id");
+        CompletableFuture<Optional<T>> future;
+        Map<ID, CompletableFuture<Optional<T>>> full = null;
+        synchronized(this){
+            future = pending.get(id);
+            if(future != null){
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(id , future);
+            if(pending.size() >= maxBatchSize){
+                full = pending;
+                pending = new LinkedHashMap<>();
+            }else if(pending.size() == 1){
+                Map<ID, CompletableFuture<Optional<T>>> batch = pending;
+                scheduler.schedule(taskDecorator.decorate(() -> flush(batch)) , windowNanos , TimeUnit.NANOSECONDS);
+            }
+        }
+        if(full != null){
+            dispatch(full);
+        }
+        return future;
+    }
+
+    //없는 id 는 결과 Map 에서 빠진다
+    public CompletableFuture<Map<ID, T>> loadMany(Collection<ID> ids){
+        Map<ID, CompletableFuture<Optional<T>>> futures = new LinkedHashMap<>();
+        for (ID id : ids) {
+            futures.computeIfAbsent(id , this :: load);
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    Map<ID, T> result = new LinkedHashMap<>();
+                    futures.forEach((id , future) -> future.join().ifPresent(entity -> result.put(id , entity)));
+                    return result;
+                });
+    }
+
+    //window 가 지나기 전에 maxBatchSize 로 이미 보낸 배치면 아무것도 하지 않는다
+    private void flush(Map<ID, CompletableFuture<Optional<T>>> batch){
+        synchronized(this){
+            if(pending != batch){
+                return;
+            }
+            pending = new LinkedHashMap<>();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<ID, CompletableFuture<Optional<T>>> batch){
+        try{
+            executor.execute(() -> load(batch));
+        }catch(RuntimeException e){
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void load(Map<ID, CompletableFuture<Optional<T>>> batch){
+        try{
+            List<ID> ids = new ArrayList<>(batch.keySet());
+            Map<ID, T> found = new HashMap<>();
+            for (T entity : batchFunction.apply(ids)) {
+                found.put(idFunction.apply(entity) , entity);
+            }
+            log.debug("{} loader fetched {} of {} ids" , name , found.size() , ids.size());
+            batch.forEach((id , future) -> future.complete(Optional.ofNullable(found.get(id))));
+        }catch(Throwable e){
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package study.datajpa.loader;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.async.AsyncRepositoryConfig;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.monitoring.StatementCounter;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+//배치 조회(findAllById)는 repositoryExecutor 에서 실행하고, 타이머 스레드는 배치를 넘기기만 한다.
+//배치의 SQL 은 배치를 연 요청의 StatementCounter 로 센다. 2차 캐시에 있는 id 는 em.find 로 캐시에서 읽고 나머지만 in 쿼리로 묶는다.
+//ScheduledExecutorService 를 빈으로 등록하면 @Scheduled 가 그 스레드를 쓰게 되므로 설정 안에만 둔다
+@Configuration
+public class EntityLoaderConfig implements DisposableBean{
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable , "entity-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Bean
+    public BatchEntityLoader<Member, Long> memberLoader(MemberRepository memberRepository ,
+                                                       EntityManagerFactory emf ,
+                                                       @Qualifier(AsyncRepositoryConfig.REPOSITORY_EXECUTOR) Executor executor ,
+                                                       StatementCounter statementCounter ,
+                                                       @Value("${loader.window-millis:2}") long windowMillis ,
+                                                       @Value("${loader.max-batch-size:100}") int maxBatchSize){
+        return new BatchEntityLoader<>("member" , cacheFirst(emf , Member.class , memberRepository :: findAllById) , Member :: getId ,
+                                       scheduler , executor , Duration.ofMillis(windowMillis) , maxBatchSize , statementCounter);
+    }
+
+    @Bean
+    public BatchEntityLoader<Team, Long> teamLoader(TeamRepository teamRepository ,
+                                                   EntityManagerFactory emf ,
+                                                   @Qualifier(AsyncRepositoryConfig.REPOSITORY_EXECUTOR) Executor executor ,
+                                                   StatementCounter statementCounter ,
+                                                   @Value("${loader.window-millis:2}") long windowMillis ,
+                                                   @Value("${loader.max-batch-size:100}") int maxBatchSize){
+        return new BatchEntityLoader<>("team" , cacheFirst(emf , Team.class , teamRepository :: findAllById) , Team :: getId ,
+                                       scheduler , executor , Duration.ofMillis(windowMillis) , maxBatchSize , statementCounter);
+    }
+
+    //캐시에서 읽은 엔티티도 배치 조회 결과처럼 준영속으로 넘기도록 배치마다 EntityManager 를 열고 닫는다
+    private static <T> Function<Collection<Long>, List<T>> cacheFirst(EntityManagerFactory emf ,
+                                                                      Class<T> type ,
+                                                                      Function<Collection<Long>, ? extends Iterable<T>> batchFunction){
+        Cache cache = emf.getCache();
+        return ids -> {
+            List<T> found = new ArrayList<>();
+            List<Long> misses = new ArrayList<>();
+            EntityManager em = null;
+            try{
+                for (Long id : ids) {
+                    if(!cache.contains(type , id)){
+                        misses.add(id);
+                        continue;
+                    }
+                    if(em == null){
+                        em = emf.createEntityManager();
+                    }
+                    T entity = em.find(type , id);
+                    if(entity != null){
+                        found.add(entity);
+                    }
+                }
+            }finally{
+                if(em != null){
+                    em.close();
+                }
+            }
+            if(!misses.isEmpty()){
+                batchFunction.apply(misses).forEach(found::add);
+            }
+            return found;
+        };
+    }
+
+    @Override
+    public void destroy(){
+        scheduler.shutdown();
+    }
+}
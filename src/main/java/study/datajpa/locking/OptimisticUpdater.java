@@ -0,0 +1,101 @@
+package study.datajpa.locking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.OptimisticLockException;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+//비관적 락(findLockByUsername) 대신 @Version 충돌을 감지하고 새 트랜잭션에서 다시 읽어 재시도한다.
+//시도마다 REQUIRES_NEW 트랜잭션이라 바깥 트랜잭션의 영속성 컨텍스트와 섞이지 않는다.
+//재시도 간격은 지수 증가 + full jitter, 충돌률은 optimistic.update.conflicts / optimistic.update.attempts
+@Slf4j
+@Component
+public class OptimisticUpdater{
+    private static final String CACHE_RETRIEVE_MODE = "javax.persistence.cache.retrieveMode";
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticUpdater(EntityManager em ,
+                             PlatformTransactionManager transactionManager ,
+                             MeterRegistry meterRegistry ,
+                             @Value("${locking.optimistic.max-attempts:5}") int maxAttempts ,
+                             @Value("${locking.optimistic.initial-backoff-millis:10}") long initialBackoffMillis ,
+                             @Value("${locking.optimistic.max-backoff-millis:200}") long maxBackoffMillis){
+        if(maxAttempts < 1){
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T update(Class<T> type , Object id , Consumer<? super T> mutation){
+        return execute(type.getSimpleName() , () -> {
+            //2차 캐시에 남은 이전 버전을 읽으면 같은 충돌이 반복되므로 DB 에서 읽는다
+            T entity = em.find(type , id , Map.of(CACHE_RETRIEVE_MODE , CacheRetrieveMode.BYPASS));
+            if(entity == null){
+                throw new EntityNotFoundException(type.getSimpleName() + " not found: " + id);
+            }
+            mutation.accept(entity);
+            return entity;
+        });
+    }
+
+    //work 는 시도마다 처음부터 다시 실행되므로 엔티티를 트랜잭션 안에서 다시 조회해야 한다
+    public <R> R execute(String operation , Supplier<R> work){
+        for (int attempt = 1; ; attempt++) {
+            meterRegistry.counter("optimistic.update.attempts" , "operation" , operation).increment();
+            try{
+                return transactionTemplate.execute(status -> {
+                    R result = work.get();
+                    //충돌을 커밋이 아니라 여기서 드러나게 해서 같은 경로로 처리한다
+                    em.flush();
+                    return result;
+                });
+            }catch(OptimisticLockingFailureException | OptimisticLockException e){
+                meterRegistry.counter("optimistic.update.conflicts" , "operation" , operation).increment();
+                if(attempt >= maxAttempts){
+                    meterRegistry.counter("optimistic.update.exhausted" , "operation" , operation).increment();
+                    throw e instanceof OptimisticLockingFailureException ? (OptimisticLockingFailureException) e
+                            : new ObjectOptimisticLockingFailureException(e.getMessage() , e);
+                }
+                log.debug("optimistic lock conflict on {} (attempt {}/{})" , operation , attempt , maxAttempts);
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt){
+        long ceiling = Math.min(maxBackoffMillis , initialBackoffMillis << Math.min(attempt - 1 , 20));
+        long millis = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try{
+            Thread.sleep(millis);
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while backing off" , e);
+        }
+    }
+}
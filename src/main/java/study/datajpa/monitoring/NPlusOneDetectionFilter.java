@@ -0,0 +1,90 @@
+package study.datajpa.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+//요청 하나에서 실행된 SQL 수가 임계치를 넘으면 N+1 의심으로 경고를 남긴다.
+//비동기 요청은 repositoryExecutor 작업까지 같은 카운터로 세고 , 결과를 보내는 async dispatch 가 끝날 때 확인한다.
+//monitoring.n-plus-one.fail 이 true 면 경고 대신 예외를 던진다 (테스트에서 N+1 을 실패로 잡을 때).
+//이때는 응답 본문을 버퍼에 모아 두고 확인을 통과한 뒤에 내보내서 , 예외가 이미 커밋된 응답 뒤로 숨지 않게 한다
+@Slf4j
+@Component
+public class NPlusOneDetectionFilter extends OncePerRequestFilter{
+    private static final String SCOPE_ATTRIBUTE = NPlusOneDetectionFilter.class.getName() + ".SCOPE";
+
+    private final StatementCounter statementCounter;
+    private final long threshold;
+    private final boolean fail;
+
+    public NPlusOneDetectionFilter(StatementCounter statementCounter ,
+                                   @Value("${monitoring.n-plus-one.threshold:20}") long threshold ,
+                                   @Value("${monitoring.n-plus-one.fail:false}") boolean fail){
+        this.statementCounter = statementCounter;
+        this.threshold = threshold;
+        this.fail = fail;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch(){
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request , HttpServletResponse response , FilterChain filterChain) throws ServletException, IOException{
+        StatementCounter.Scope started = (StatementCounter.Scope) request.getAttribute(SCOPE_ATTRIBUTE);
+        StatementCounter.Scope scope = started == null ? statementCounter.open() : statementCounter.resume(started);
+        HttpServletResponse responseToUse = response;
+        if(fail && WebUtils.getNativeResponse(response , BufferedResponse.class) == null){
+            responseToUse = new BufferedResponse(response);
+        }
+        boolean completed;
+        try{
+            filterChain.doFilter(request , responseToUse);
+        }finally{
+            scope.close();
+            completed = !isAsyncStarted(request);
+            if(completed){
+                request.removeAttribute(SCOPE_ATTRIBUTE);
+            }else{
+                request.setAttribute(SCOPE_ATTRIBUTE , scope);
+            }
+        }
+        //요청 처리 중 예외가 나면 그 예외를 가리지 않도록 정상 종료했을 때만 확인한다
+        if(completed){
+            check(request , scope.executed());
+            BufferedResponse buffered = WebUtils.getNativeResponse(responseToUse , BufferedResponse.class);
+            if(buffered != null){
+                buffered.copyBodyToResponse();
+            }
+        }
+    }
+
+    private void check(HttpServletRequest request , long executed){
+        if(executed <= threshold){
+            return;
+        }
+        String message = "possible N+1: " + request.getMethod() + " " + request.getRequestURI() +
+                " executed " + executed + " statements (threshold " + threshold + ")";
+        if(fail){
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    //바깥 필터가 감싼 ContentCachingResponseWrapper 와 구분해서 이 필터가 감싼 응답만 내보낸다
+    private static class BufferedResponse extends ContentCachingResponseWrapper{
+        BufferedResponse(HttpServletResponse response){
+            super(response);
+        }
+    }
+}
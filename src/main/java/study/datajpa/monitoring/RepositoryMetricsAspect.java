@@ -0,0 +1,128 @@
+package study.datajpa.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import study.datajpa.repository.CursorSlice;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.BaseStream;
+import java.util.stream.Collectors;
+
+//Spring Data 리포지토리(파생/@Query/네이티브/스펙 모두)와 @Repository 클래스의 메서드별 지연시간, 반환 건수, 실행 SQL 수를 기록한다.
+//findAll() , findAll(Pageable) 같은 오버로드는 signature 태그(파라미터 타입)로 나눈다
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect{
+    private static final long NOT_ROWS = -1;
+
+    private final MeterRegistry meterRegistry;
+    private final StatementCounter statementCounter;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+    private final Map<Method, String> signatures = new ConcurrentHashMap<>();
+
+    @Around("this(org.springframework.data.repository.Repository) || @within(org.springframework.stereotype.Repository)")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable{
+        String repository = repositoryNames.computeIfAbsent(joinPoint.getTarget().getClass() , RepositoryMetricsAspect :: repositoryName);
+        String signature = signatures.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod() , RepositoryMetricsAspect :: signature);
+        Tags tags = Tags.of("repository" , repository , "method" , joinPoint.getSignature().getName() , "signature" , signature);
+        long statementsBefore = statementCounter.current();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Object result;
+        try{
+            result = joinPoint.proceed();
+        }catch(Throwable e){
+            record(tags , sample , statementsBefore , null , e);
+            throw e;
+        }
+        //@Async 메서드는 제출하자마자 future 를 돌려주므로 future 가 끝날 때 기록한다
+        if(result instanceof CompletionStage){
+            ((CompletionStage<?>) result).whenComplete((value , e) -> record(tags , sample , statementsBefore , value , e));
+        }else{
+            record(tags , sample , statementsBefore , result , null);
+        }
+        return result;
+    }
+
+    private void record(Tags tags , Timer.Sample sample , long statementsBefore , Object result , Throwable failure){
+        if(failure instanceof CompletionException && failure.getCause() != null){
+            failure = failure.getCause();
+        }
+        if(failure == null){
+            long rows = rows(result);
+            if(rows != NOT_ROWS){
+                DistributionSummary.builder("repository.rows")
+                        .tags(tags)
+                        .register(meterRegistry)
+                        .record(rows);
+            }
+        }
+        sample.stop(Timer.builder("repository.invocations")
+                            .tags(tags)
+                            .tag("exception" , failure == null ? "none" : failure.getClass().getSimpleName())
+                            .publishPercentileHistogram()
+                            .register(meterRegistry));
+        DistributionSummary.builder("repository.statements")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(statementCounter.current() - statementsBefore);
+    }
+
+    //Spring Data 리포지토리는 JDK 프록시라서 구현한 리포지토리 인터페이스 이름을 쓴다
+    private static String repositoryName(Class<?> targetClass){
+        for (Class<?> ifc : targetClass.getInterfaces()) {
+            if(Repository.class.isAssignableFrom(ifc) && !ifc.getName().startsWith("org.springframework.")){
+                return ifc.getSimpleName();
+            }
+        }
+        return ClassUtils.getUserClass(targetClass).getSimpleName();
+    }
+
+    //findAll(Pageable) 처럼 메서드 이름과 파라미터 타입의 단순 이름으로 쓴다
+    private static String signature(Method method){
+        return Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining("," , method.getName() + "(" , ")"));
+    }
+
+    //건수, 벌크 업데이트 결과 같은 숫자와 Stream 은 행 수로 보지 않는다
+    private static long rows(Object result){
+        if(result == null){
+            return 0;
+        }
+        if(result instanceof Collection){
+            return ((Collection<?>) result).size();
+        }
+        if(result instanceof Slice){
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if(result instanceof CursorSlice){
+            return ((CursorSlice<?>) result).getContent().size();
+        }
+        if(result instanceof Optional){
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if(result instanceof Number || result instanceof Boolean || result instanceof BaseStream){
+            return NOT_ROWS;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,75 @@
+package study.datajpa.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+//p6spy 가 감싼 DataSource 에서 실행된 JDBC 문장 수를 스레드별로 센다. 배치 실행은 한 번으로 센다.
+//사용하는 쪽에서 전후 값의 차이로 구간 내 실행 횟수를 구한다.
+//TaskDecorator 로 붙이면 작업을 넘긴 스레드의 카운터로 세므로 repositoryExecutor 에서 실행된 문장도 요청에 포함된다
+@Component
+public class StatementCounter extends SimpleJdbcEventListener implements TaskDecorator{
+    private final ThreadLocal<AtomicLong> count = ThreadLocal.withInitial(AtomicLong::new);
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation , long timeElapsedNanos , SQLException e){
+        count.get().incrementAndGet();
+    }
+
+    public long current(){
+        return count.get().get();
+    }
+
+    //요청마다 새 카운터를 현재 스레드에 붙인다. close 하면 이전 카운터로 돌아간다
+    public Scope open(){
+        return bind(new AtomicLong());
+    }
+
+    //비동기 요청이 다른 스레드에서 재개될 때 같은 카운터로 이어 센다
+    public Scope resume(Scope scope){
+        return bind(scope.counter);
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable){
+        AtomicLong counter = count.get();
+        return () -> {
+            Scope scope = bind(counter);
+            try{
+                runnable.run();
+            }finally{
+                scope.close();
+            }
+        };
+    }
+
+    private Scope bind(AtomicLong counter){
+        AtomicLong previous = count.get();
+        count.set(counter);
+        return new Scope(counter , previous);
+    }
+
+    public final class Scope implements AutoCloseable{
+        private final AtomicLong counter;
+        private final AtomicLong previous;
+
+        private Scope(AtomicLong counter , AtomicLong previous){
+            this.counter = counter;
+            this.previous = previous;
+        }
+
+        //이 카운터로 센 문장 수 (넘겨받은 작업 포함)
+        public long executed(){
+            return counter.get();
+        }
+
+        @Override
+        public void close(){
+            count.set(previous);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package study.datajpa.outbox;
+
+import java.util.List;
+
+//같은 프로세스 안의 구독자(로컬 캐시 무효화 등). 빈으로 등록하거나 OutboxRelay#addListener 로 붙인다.
+//예외를 던지면 배치 전체가 다음 주기에 다시 전달되므로 중복 수신을 견뎌야 한다
+public interface ChangeListener{
+    void onChanges(List<ChangeRecord> records);
+}
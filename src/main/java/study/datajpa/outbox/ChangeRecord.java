@@ -0,0 +1,30 @@
+package study.datajpa.outbox;
+
+import lombok.Getter;
+import lombok.ToString;
+import study.datajpa.entity.ChangeType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//발행되는 변경 한 건. 엔티티 상태는 담지 않으므로 받는 쪽은 id 로 다시 조회하거나 캐시를 비운다
+@Getter
+@ToString
+public class ChangeRecord{
+    private final long eventId;
+    private final String entityType;
+    private final String entityId;
+    private final ChangeType changeType;
+    private final List<String> changedProperties;
+    private final LocalDateTime occurredAt;
+
+    public ChangeRecord(long eventId , String entityType , String entityId , ChangeType changeType ,
+                        List<String> changedProperties , LocalDateTime occurredAt){
+        this.eventId = eventId;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.changeType = changeType;
+        this.changedProperties = changedProperties;
+        this.occurredAt = occurredAt;
+    }
+}
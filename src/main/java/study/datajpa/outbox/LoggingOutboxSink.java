@@ -0,0 +1,14 @@
+package study.datajpa.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+//다른 OutboxSink 빈이 없을 때 쓰는 기본 구현
+@Slf4j
+public class LoggingOutboxSink implements OutboxSink{
+    @Override
+    public void publish(List<ChangeRecord> records){
+        log.debug("outbox publish {} records: {}" , records.size() , records);
+    }
+}
@@ -0,0 +1,31 @@
+package study.datajpa.outbox;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import study.datajpa.entity.Item;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Set;
+
+@Configuration
+@EnableScheduling
+public class OutboxConfig{
+
+    @Bean
+    public OutboxEventListener outboxEventListener(EntityManagerFactory emf , OutboxWriter outboxWriter){
+        OutboxEventListener listener = new OutboxEventListener(outboxWriter , Set.of(Member.class , Team.class , Item.class));
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT , listener);
+        registry.appendListeners(EventType.POST_UPDATE , listener);
+        registry.appendListeners(EventType.POST_DELETE , listener);
+        return listener;
+    }
+}
@@ -0,0 +1,79 @@
+package study.datajpa.outbox;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import study.datajpa.entity.ChangeType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+//tracked 엔티티의 insert/update/delete 를 OutboxWriter 에 넘긴다. update 는 dirty 속성 이름만 남긴다
+public class OutboxEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener{
+    private static final long serialVersionUID = 1L;
+
+    private final OutboxWriter writer;
+    private final Set<Class<?>> tracked;
+
+    public OutboxEventListener(OutboxWriter writer , Set<Class<?>> tracked){
+        this.writer = writer;
+        this.tracked = tracked;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event){
+        if(isTracked(event.getPersister())){
+            writer.capture(event.getSession() , event.getPersister().getMappedClass() , event.getId() , ChangeType.CREATED , null);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event){
+        if(isTracked(event.getPersister())){
+            writer.capture(event.getSession() , event.getPersister().getMappedClass() , event.getId() , ChangeType.UPDATED ,
+                           dirtyProperties(event));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event){
+        if(isTracked(event.getPersister())){
+            writer.capture(event.getSession() , event.getPersister().getMappedClass() , event.getId() , ChangeType.DELETED , null);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister){
+        return false;
+    }
+
+    //Hibernate 5.4 에서는 아직 추상 메서드라 구현은 해야 한다
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister){
+        return requiresPostCommitHandling(persister);
+    }
+
+    private boolean isTracked(EntityPersister persister){
+        return tracked.contains(persister.getMappedClass());
+    }
+
+    //merge 처럼 dirty 체크 없이 update 되면 null
+    private static List<String> dirtyProperties(PostUpdateEvent event){
+        int[] dirty = event.getDirtyProperties();
+        if(dirty == null){
+            return null;
+        }
+        String[] names = event.getPersister().getPropertyNames();
+        List<String> properties = new ArrayList<>(dirty.length);
+        for (int index : dirty) {
+            properties.add(names[index]);
+        }
+        return properties;
+    }
+}
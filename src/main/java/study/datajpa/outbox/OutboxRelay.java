@@ -0,0 +1,118 @@
+package study.datajpa.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.ChangeType;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+//outbox_event 를 id 순으로 batchSize 건씩 읽어 OutboxSink 들과 ChangeListener 들에 넘기고 성공하면 지운다.
+//전달 후 삭제 전에 죽거나 하나라도 실패하면 그 배치부터 다시 보내므로 at-least-once 이고 , 한 스레드가 id 순으로만 보내므로 엔티티별 순서가 유지된다.
+//프로세스 안에서는 lock 으로 한 번에 하나만 돈다. 여러 인스턴스에서 돌리면 하나만 outbox.relay.enabled 로 켠다
+@Slf4j
+@Component
+public class OutboxRelay{
+    private static final RowMapper<ChangeRecord> CHANGE_RECORD = (rs , rowNum) -> {
+        String changed = rs.getString(5);
+        return new ChangeRecord(rs.getLong(1) , rs.getString(2) , rs.getString(3) , ChangeType.valueOf(rs.getString(4)) ,
+                                changed == null ? List.of() : List.of(changed.split(",")) , rs.getTimestamp(6).toLocalDateTime());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<OutboxSink> sinks;
+    private final ObjectProvider<ChangeListener> beanListeners;
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final OutboxSink defaultSink = new LoggingOutboxSink();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter published;
+    private final Counter failures;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public OutboxRelay(DataSource dataSource ,
+                       ObjectProvider<OutboxSink> sinks ,
+                       ObjectProvider<ChangeListener> beanListeners ,
+                       MeterRegistry meterRegistry ,
+                       @Value("${outbox.relay.enabled:true}") boolean enabled ,
+                       @Value("${outbox.relay.batch-size:500}") int batchSize){
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.sinks = sinks;
+        this.beanListeners = beanListeners;
+        this.published = meterRegistry.counter("outbox.relay.published");
+        this.failures = meterRegistry.counter("outbox.relay.failures");
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    public void addListener(ChangeListener listener){
+        listeners.add(listener);
+    }
+
+    public void removeListener(ChangeListener listener){
+        listeners.remove(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.interval-millis:1000}")
+    public void scheduledRelay(){
+        if(!enabled){
+            return;
+        }
+        try{
+            relay();
+        }catch(RuntimeException e){
+            log.warn("outbox relay failed, retrying on next run" , e);
+        }
+    }
+
+    //남은 기록이 없을 때까지 보낸 건수. 실패하면 그 배치는 지우지 않고 예외를 던진다
+    public int relay(){
+        lock.lock();
+        try{
+            int total = 0;
+            while (true) {
+                List<ChangeRecord> batch = jdbcTemplate.query("select id, aggregate_type, aggregate_id, change_type, changed_properties, occurred_at " +
+                                                                      "from outbox_event order by id limit ?" , CHANGE_RECORD , batchSize);
+                if(batch.isEmpty()){
+                    return total;
+                }
+                try{
+                    deliver(batch);
+                }catch(RuntimeException e){
+                    failures.increment();
+                    throw e;
+                }
+                jdbcTemplate.batchUpdate("delete from outbox_event where id = ?" ,
+                                         batch.stream().map(record -> new Object[]{record.getEventId()}).collect(Collectors.toList()));
+                published.increment(batch.size());
+                total += batch.size();
+                if(batch.size() < batchSize){
+                    return total;
+                }
+            }
+        }finally{
+            lock.unlock();
+        }
+    }
+
+    private void deliver(List<ChangeRecord> batch){
+        List<ChangeRecord> records = List.copyOf(batch);
+        List<OutboxSink> configured = sinks.orderedStream().collect(Collectors.toList());
+        if(configured.isEmpty()){
+            defaultSink.publish(records);
+        }
+        configured.forEach(sink -> sink.publish(records));
+        beanListeners.orderedStream().forEach(listener -> listener.onChanges(records));
+        listeners.forEach(listener -> listener.onChanges(records));
+    }
+}
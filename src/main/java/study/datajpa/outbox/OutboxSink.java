@@ -0,0 +1,8 @@
+package study.datajpa.outbox;
+
+import java.util.List;
+
+//외부 전달(메시지 브로커 , 검색 색인 등). records 는 id 순서이고 , 예외 없이 반환해야 발행된 것으로 보고 지운다
+public interface OutboxSink{
+    void publish(List<ChangeRecord> records);
+}
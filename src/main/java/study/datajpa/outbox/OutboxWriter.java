@@ -0,0 +1,109 @@
+package study.datajpa.outbox;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.event.spi.EventSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.ChangeType;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//변경 기록을 세션별로 모았다가 커밋 직전(flush 이후) 같은 커넥션으로 한 번에 insert 한다.
+//Spring 의 beforeCommit 은 커밋 시점 flush 보다 먼저 불리므로 Hibernate 의 BeforeTransactionCompletionProcess 를 쓴다. 롤백되면 버린다
+@Component
+public class OutboxWriter{
+    private static final String INSERT = "insert into outbox_event (aggregate_type, aggregate_id, change_type, changed_properties, occurred_at) " +
+            "values (?, ?, ?, ?, ?)";
+
+    private final Map<EventSource, List<Draft>> pending = new ConcurrentHashMap<>();
+    private final EntityManager em;
+    private final Clock clock;
+
+    public OutboxWriter(EntityManager em , Clock clock){
+        this.em = em;
+        this.clock = clock;
+    }
+
+    public void capture(EventSource session , Class<?> entityType , Object entityId , ChangeType changeType , Collection<String> changedProperties){
+        //버퍼는 트랜잭션 완료 처리에서만 비워지므로 트랜잭션 밖에서는 쌓아 두지 않는다
+        requireTransaction();
+        String changed = changedProperties == null || changedProperties.isEmpty() ? null : String.join("," , changedProperties);
+        buffer(session).add(new Draft(entityType.getSimpleName() , String.valueOf(entityId) , changeType , changed , LocalDateTime.now(clock)));
+    }
+
+    //엔티티 이벤트를 거치지 않는 벌크 연산용. 현재 트랜잭션의 세션 버퍼에 넣으므로 같은 트랜잭션의 엔티티 이벤트와 순서가 유지된다.
+    //호출하는 쪽이 대상 행을 잠근 id 목록으로 갱신하고 같은 목록을 넘겨야 기록과 갱신이 어긋나지 않는다
+    public void captureBulk(Class<?> entityType , Collection<?> entityIds , ChangeType changeType , String... changedProperties){
+        if(entityIds.isEmpty()){
+            return;
+        }
+        requireTransaction();
+        EventSource session = em.unwrap(EventSource.class);
+        String changed = changedProperties.length == 0 ? null : String.join("," , changedProperties);
+        LocalDateTime occurredAt = LocalDateTime.now(clock);
+        List<Draft> buffer = buffer(session);
+        for (Object entityId : entityIds) {
+            buffer.add(new Draft(entityType.getSimpleName() , String.valueOf(entityId) , changeType , changed , occurredAt));
+        }
+    }
+
+    private static void requireTransaction(){
+        if(!TransactionSynchronizationManager.isActualTransactionActive()){
+            throw new IllegalStateException("outbox records must be written inside a transaction");
+        }
+    }
+
+    private List<Draft> buffer(EventSource session){
+        return pending.computeIfAbsent(session , s -> {
+            s.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) completing -> write(s));
+            s.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success , completed) -> pending.remove(s));
+            return new ArrayList<>();
+        });
+    }
+
+    private void write(EventSource session){
+        List<Draft> drafts = pending.remove(session);
+        if(drafts == null || drafts.isEmpty()){
+            return;
+        }
+        session.doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT)) {
+                for (Draft draft : drafts) {
+                    ps.setString(1 , draft.entityType);
+                    ps.setString(2 , draft.entityId);
+                    ps.setString(3 , draft.changeType.name());
+                    ps.setString(4 , draft.changedProperties);
+                    ps.setTimestamp(5 , Timestamp.valueOf(draft.occurredAt));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+
+    private static class Draft{
+        private final String entityType;
+        private final String entityId;
+        private final ChangeType changeType;
+        private final String changedProperties;
+        private final LocalDateTime occurredAt;
+
+        Draft(String entityType , String entityId , ChangeType changeType , String changedProperties , LocalDateTime occurredAt){
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.changeType = changeType;
+            this.changedProperties = changedProperties;
+            this.occurredAt = occurredAt;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package study.datajpa.paging;
+
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+//BaseEntity 의 엔티티 리스너. 하이버네이트가 SpringBeanContainer 로 생성하므로 빈을 주입받는다
+@RequiredArgsConstructor
+public class CountInvalidationListener{
+    private final TotalCountCache totalCountCache;
+
+    //수정도 조건부 count(나이별 등)를 바꿀 수 있으므로 함께 비운다
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void invalidate(Object entity){
+        totalCountCache.invalidate();
+    }
+}
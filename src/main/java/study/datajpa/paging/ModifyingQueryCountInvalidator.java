@@ -0,0 +1,19 @@
+package study.datajpa.paging;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+//벌크 update/delete 는 엔티티 리스너를 거치지 않으므로 @Modifying 리포지토리 메서드 뒤에 비운다
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ModifyingQueryCountInvalidator{
+    private final TotalCountCache totalCountCache;
+
+    @AfterReturning("this(org.springframework.data.repository.Repository) && @annotation(org.springframework.data.jpa.repository.Modifying)")
+    public void invalidate(){
+        totalCountCache.invalidate();
+    }
+}
@@ -0,0 +1,116 @@
+package study.datajpa.paging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+//Page 의 전체 건수를 키별로 ttl 동안 재사용한다. 근사값이며 Member/Team 저장, 삭제, @Modifying 벌크 연산 시 전부 비운다.
+//첫 페이지나 마지막 페이지가 pageSize 보다 짧으면 count 쿼리 없이 건수를 계산한다(PageableExecutionUtils).
+//paging.count 카운터의 outcome 태그(executed, cached, skipped)로 생략된 count 쿼리 수를 본다
+@Component
+public class TotalCountCache{
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Duration ttl;
+
+    public TotalCountCache(MeterRegistry meterRegistry ,
+                           Clock clock ,
+                           @Value("${paging.count-cache.ttl:30s}") Duration ttl){
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.ttl = ttl;
+    }
+
+    public <T> Page<T> page(String key , List<T> content , Pageable pageable , LongSupplier countQuery){
+        boolean[] counted = new boolean[1];
+        Page<T> page = PageableExecutionUtils.getPage(content , pageable , () -> {
+            counted[0] = true;
+            return count(key , countQuery);
+        });
+        if(!counted[0]){
+            increment("skipped");
+        }
+        return page;
+    }
+
+    public long count(String key , LongSupplier countQuery){
+        long now = clock.millis();
+        CachedCount cached = counts.get(key);
+        if(cached != null && cached.expiresAt > now){
+            increment("cached");
+            return cached.total;
+        }
+        long generationBefore = generation.get();
+        long total = countQuery.getAsLong();
+        increment("executed");
+        //세는 도중 무효화됐으면 캐시에 넣지 않는다
+        if(generation.get() == generationBefore){
+            counts.put(key , new CachedCount(total , now + ttl.toMillis()));
+        }
+        return total;
+    }
+
+    //트랜잭션 안이면 끝난 뒤에도 한 번 더 비워서, 커밋 전(또는 롤백된) 상태로 센 값이 남지 않게 한다.
+    //저장할 때마다 불리므로 트랜잭션마다 synchronization 은 하나만 등록한다 (리소스로 표시)
+    public void invalidate(){
+        clear();
+        if(TransactionSynchronizationManager.isSynchronizationActive() && !TransactionSynchronizationManager.hasResource(this)){
+            ClearAfterCompletion synchronization = new ClearAfterCompletion();
+            TransactionSynchronizationManager.bindResource(this , synchronization);
+            TransactionSynchronizationManager.registerSynchronization(synchronization);
+        }
+    }
+
+    private void clear(){
+        generation.incrementAndGet();
+        counts.clear();
+    }
+
+    private void increment(String outcome){
+        meterRegistry.counter("paging.count" , "outcome" , outcome).increment();
+    }
+
+    //REQUIRES_NEW 등으로 트랜잭션이 중단되면 표시도 같이 내렸다가 재개할 때 다시 올린다
+    private class ClearAfterCompletion implements TransactionSynchronization{
+        @Override
+        public void suspend(){
+            TransactionSynchronizationManager.unbindResource(TotalCountCache.this);
+        }
+
+        @Override
+        public void resume(){
+            TransactionSynchronizationManager.bindResource(TotalCountCache.this , this);
+        }
+
+        @Override
+        public void afterCompletion(int status){
+            TransactionSynchronizationManager.unbindResourceIfPossible(TotalCountCache.this);
+            clear();
+        }
+    }
+
+    private static class CachedCount{
+        private final long total;
+        private final long expiresAt;
+
+        private CachedCount(long total , long expiresAt){
+            this.total = total;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
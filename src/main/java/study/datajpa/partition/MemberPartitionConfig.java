@@ -0,0 +1,38 @@
+package study.datajpa.partition;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.async.AsyncRepositoryConfig;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.concurrent.Executor;
+
+@Configuration
+@EnableConfigurationProperties(MemberPartitionProperties.class)
+@ConditionalOnProperty(prefix = "partition.member" , name = "enabled" , havingValue = "true")
+public class MemberPartitionConfig{
+
+    @Bean
+    public PartitionedMemberRepository partitionedMemberRepository(DataSource dataSource ,
+                                                                   @Qualifier(AsyncRepositoryConfig.REPOSITORY_EXECUTOR) Executor executor ,
+                                                                   MemberPartitionProperties properties){
+        return new PartitionedMemberRepository(dataSource , new MemberPartitionDdl(properties.getSchemaPrefix() , properties.getCount()) , executor);
+    }
+
+    @Bean
+    public MemberPartitionRouter memberPartitionRouter(PartitionedMemberRepository partitionedMemberRepository , EntityManager em){
+        return new MemberPartitionRouter(partitionedMemberRepository , em);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "partition.member" , name = "rebuild-on-startup" , havingValue = "true")
+    public ApplicationListener<ApplicationReadyEvent> memberPartitionRebuilder(PartitionedMemberRepository partitionedMemberRepository){
+        return event -> partitionedMemberRepository.rebuild();
+    }
+}
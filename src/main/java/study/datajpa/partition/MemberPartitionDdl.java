@@ -0,0 +1,50 @@
+package study.datajpa.partition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//파티션마다 스키마 하나(member_p0 , member_p1 ...)에 member 테이블을 파티션 번호로 거른 member 뷰를 둔다.
+//H2 는 선언적 파티셔닝이 없으므로 스키마 샤드로 나누고 라우팅은 애플리케이션이 한다. 파티션 번호 = floorMod(coalesce(team_id, 0), count).
+//행은 member 테이블에만 있으므로 벌크 삭제나 JDBC 같은 어떤 쓰기 경로로 바뀌어도 파티션에 바로 보인다
+public final class MemberPartitionDdl{
+    private final String schemaPrefix;
+    private final int count;
+
+    public MemberPartitionDdl(String schemaPrefix , int count){
+        if(count < 1){
+            throw new IllegalArgumentException("partition count must be positive: " + count);
+        }
+        this.schemaPrefix = schemaPrefix;
+        this.count = count;
+    }
+
+    public int count(){
+        return count;
+    }
+
+    public String schema(int partition){
+        return schemaPrefix + partition;
+    }
+
+    public String table(int partition){
+        return schema(partition) + ".member";
+    }
+
+    public List<String> create(){
+        List<String> statements = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            statements.add("create schema if not exists " + schema(i));
+            statements.add("create or replace view " + table(i) + " as select * from member where " + partitionExpression("team_id") + " = " + i);
+        }
+        return statements;
+    }
+
+    //SQL mod 는 음수면 음수를 돌려주므로 한 번 더 더해서 partitionOf 의 floorMod 와 맞춘다
+    public String partitionExpression(String teamIdColumn){
+        return "mod(mod(coalesce(" + teamIdColumn + ", 0), " + count + ") + " + count + ", " + count + ")";
+    }
+
+    public int partitionOf(Long teamId){
+        return teamId == null ? 0 : (int) Math.floorMod(teamId , (long) count);
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.partition;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+//count 를 바꾸면 모든 회원의 파티션이 바뀌므로 rebuild 해야 한다
+@Getter
+@Setter
+@ConfigurationProperties("partition.member")
+public class MemberPartitionProperties{
+    private boolean enabled = false;
+    private int count = 4;
+    private String schemaPrefix = "member_p";
+    private boolean rebuildOnStartup = false;
+}
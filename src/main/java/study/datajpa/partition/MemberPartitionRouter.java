@@ -0,0 +1,42 @@
+package study.datajpa.partition;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+//MemberRepository 의 팀 조건 조회를 파티션으로 보낸다. rebuild 된 적이 없으면 isActive 가 false 이고 원래 쿼리를 쓴다
+public class MemberPartitionRouter{
+    private final PartitionedMemberRepository repository;
+    private final EntityManager em;
+
+    public MemberPartitionRouter(PartitionedMemberRepository repository , EntityManager em){
+        this.repository = repository;
+        this.em = em;
+    }
+
+    public boolean isActive(){
+        return repository.isBuilt();
+    }
+
+    //JDBC 로 읽으므로 같은 트랜잭션에서 flush 하지 않은 변경을 먼저 내보낸다
+    public List<MemberDto> findMemberDto(){
+        if(TransactionSynchronizationManager.isActualTransactionActive()){
+            em.flush();
+        }
+        return repository.findMemberDtoWithTeam();
+    }
+
+    //팀 이름으로 파티션을 고르고 where(m , t 별칭 , teamName 파라미터 포함)를 붙여 엔티티로 읽는다. 파라미터는 binder 가 바인딩한다
+    @SuppressWarnings("unchecked")
+    public List<Member> findMembersByTeamName(String teamName , String where , UnaryOperator<Query> binder){
+        List<Integer> partitions = repository.partitionsForTeam(teamName);
+        //없는 팀이면 아무 파티션 하나에서 빈 결과를 받는다
+        List<Integer> targets = partitions.isEmpty() ? List.of(0) : partitions;
+        return binder.apply(em.createNativeQuery(repository.memberSql(targets , where) , Member.class)).getResultList();
+    }
+}
@@ -0,0 +1,160 @@
+package study.datajpa.partition;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.dto.MemberDto;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+//team_id 로 나눈 member 파티션 조회. 팀 조건이 있으면 해당 팀이 속한 파티션만 읽고(pruning),
+//없으면 모든 파티션을 executor 에서 병렬로 읽어 member_id 순으로 k-way merge 한다 (트랜잭션 안이면 같은 커넥션으로 차례로 읽는다).
+//파티션은 member 테이블 위의 뷰라서 따로 맞출 사본이 없다. 팀 이름은 파티션하지 않은 team 테이블과 join 한다
+public class PartitionedMemberRepository{
+    private static final Comparator<MemberDto> BY_ID = Comparator.comparing(MemberDto::getId);
+    private static final RowMapper<MemberDto> MEMBER_DTO = (rs , rowNum) ->
+            new MemberDto(rs.getLong(1) , rs.getString(2) , rs.getString(3));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberPartitionDdl ddl;
+    private final Executor executor;
+    private volatile boolean built;
+
+    public PartitionedMemberRepository(DataSource dataSource , MemberPartitionDdl ddl , Executor executor){
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.ddl = ddl;
+        this.executor = executor;
+    }
+
+    //파티션 뷰를 (다시) 만든다. 처음 한 번과 파티션 수를 바꿨을 때만 필요하다.
+    //H2 는 읽는 중인 뷰를 바꾸면 조회가 실패할 수 있으므로 조회가 없을 때(시작할 때) 실행한다
+    public synchronized void rebuild(){
+        ddl.create().forEach(jdbcTemplate::execute);
+        built = true;
+    }
+
+    //파티션 뷰가 없으면 라우팅하지 않는다 (H2 information_schema)
+    public boolean isBuilt(){
+        if(!built){
+            built = jdbcTemplate.queryForObject("select count(*) from information_schema.views where table_schema = ? and table_name = 'MEMBER'" ,
+                                                Long.class , ddl.schema(0).toUpperCase()) > 0;
+        }
+        return built;
+    }
+
+    public int partitionOf(Long teamId){
+        return ddl.partitionOf(teamId);
+    }
+
+    //팀 이름이 같은 팀이 여러 개면 각 팀의 파티션을 모두 읽는다
+    public List<Integer> partitionsForTeam(String teamName){
+        List<Long> teamIds = jdbcTemplate.queryForList("select team_id from team where name = ?" , Long.class , teamName);
+        return teamIds.stream().map(ddl::partitionOf).distinct().sorted().collect(Collectors.toList());
+    }
+
+    public List<MemberDto> findMemberDtoByTeamId(long teamId){
+        return query(List.of(partitionOf(teamId)) , "where m.team_id = ?" , 0 , teamId);
+    }
+
+    public List<MemberDto> findMemberDtoByTeamName(String teamName){
+        return query(partitionsForTeam(teamName) , "where t.name = ?" , 0 , teamName);
+    }
+
+    //팀 조건이 없으므로 모든 파티션에서 limit 건씩 읽고 합쳐서 앞의 limit 건만 남긴다. limit <= 0 이면 전부
+    public List<MemberDto> findMemberDto(int limit){
+        return query(allPartitions() , "" , limit);
+    }
+
+    //팀이 있는 회원만 (MemberRepository.findMemberDto 의 inner join)
+    public List<MemberDto> findMemberDtoWithTeam(){
+        return query(allPartitions() , "where t.team_id is not null" , 0);
+    }
+
+    //member m , team t 별칭의 조건으로 주어진 파티션의 회원 전체 컬럼을 읽는 SQL (엔티티 네이티브 쿼리용). 파라미터는 이름으로 바인딩한다
+    public String memberSql(Collection<Integer> partitions , String where){
+        return new TreeSet<>(partitions).stream()
+                .map(partition -> "select m.* from " + ddl.table(partition) + " m join team t on m.team_id = t.team_id where " + where)
+                .collect(Collectors.joining(" union all "));
+    }
+
+    private List<Integer> allPartitions(){
+        return IntStream.range(0 , ddl.count()).boxed().collect(Collectors.toList());
+    }
+
+    private List<MemberDto> query(Collection<Integer> partitions , String where , int limit , Object... args){
+        List<Integer> targets = new ArrayList<>(new TreeSet<>(partitions));
+        if(targets.isEmpty()){
+            return List.of();
+        }
+        if(targets.size() == 1){
+            return queryPartition(targets.get(0) , where , limit , args);
+        }
+        //다른 스레드는 아직 커밋되지 않은 변경을 못 보므로 트랜잭션 안이면 나눠 보내지 않는다
+        if(TransactionSynchronizationManager.isActualTransactionActive()){
+            return merge(targets.stream().map(partition -> queryPartition(partition , where , limit , args)).collect(Collectors.toList()) , limit);
+        }
+        List<CompletableFuture<List<MemberDto>>> futures = targets.stream()
+                .map(partition -> CompletableFuture.supplyAsync(() -> queryPartition(partition , where , limit , args) , executor))
+                .collect(Collectors.toList());
+        List<List<MemberDto>> results = futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        return merge(results , limit);
+    }
+
+    private List<MemberDto> queryPartition(int partition , String where , int limit , Object[] args){
+        String sql = "select m.member_id, m.username, t.name from " + ddl.table(partition) + " m " +
+                "left join team t on m.team_id = t.team_id " + where + " order by m.member_id";
+        if(limit > 0){
+            sql += " limit " + limit;
+        }
+        return jdbcTemplate.query(sql , MEMBER_DTO , args);
+    }
+
+    //각 파티션 결과는 member_id 로 정렬되어 있으므로 맨 앞 원소끼리만 비교한다
+    static List<MemberDto> merge(List<List<MemberDto>> sortedLists , int limit){
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Comparator.comparing(Cursor::head , BY_ID));
+        int total = 0;
+        for (List<MemberDto> list : sortedLists) {
+            if(!list.isEmpty()){
+                heads.add(new Cursor(list));
+                total += list.size();
+            }
+        }
+        int size = limit > 0 ? Math.min(limit , total) : total;
+        List<MemberDto> merged = new ArrayList<>(size);
+        while (merged.size() < size) {
+            Cursor cursor = heads.poll();
+            merged.add(cursor.head());
+            if(cursor.advance()){
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static class Cursor{
+        private final List<MemberDto> list;
+        private int index;
+
+        Cursor(List<MemberDto> list){
+            this.list = list;
+        }
+
+        MemberDto head(){
+            return list.get(index);
+        }
+
+        boolean advance(){
+            return ++index < list.size();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package study.datajpa.projection;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//root 엔티티(별칭 m)에서 projection 이 쓰는 컬럼만 select 하는 평평한 JPQL 과, 결과 행을 생성된 구현 클래스로 바꾸는 매퍼
+//tuple = [select 컬럼들 | 계산 슬롯(중첩 projection , @Value 연결)] 이고 모든 객체가 이 배열 하나를 공유한다
+public class CompiledProjection<P>{
+    private final Class<P> type;
+    private final String selectClause;
+    private final String fromClause;
+    private final int columnCount;
+    private final ValueReader[] computed;
+    private final Node root;
+
+    CompiledProjection(Class<P> type , String selectClause , String fromClause , int columnCount , ValueReader[] computed , Node root){
+        this.type = type;
+        this.selectClause = selectClause;
+        this.fromClause = fromClause;
+        this.columnCount = columnCount;
+        this.computed = computed;
+        this.root = root;
+    }
+
+    //where 는 "where m.username = :username" 처럼 별칭 m 기준으로 쓴다
+    public String jpql(String where){
+        return "select " + selectClause + " from " + fromClause + (where == null || where.isEmpty() ? "" : " " + where);
+    }
+
+    public List<String> columns(){
+        return Arrays.asList(selectClause.split(", "));
+    }
+
+    public P map(Object row){
+        Object[] tuple = tuple(row);
+        for (int i = 0; i < computed.length; i++) {
+            tuple[columnCount + i] = computed[i].read(tuple);
+        }
+        return type.cast(root.create(tuple));
+    }
+
+    public List<P> mapAll(List<?> rows){
+        List<P> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(map(row));
+        }
+        return result;
+    }
+
+    //계산 슬롯이 없으면 Hibernate 가 돌려준 행 배열을 그대로 쓴다. select 컬럼이 하나면 JPQL 은 값 자체를 돌려준다
+    private Object[] tuple(Object row){
+        int width = columnCount + computed.length;
+        if(columnCount == 1){
+            Object[] tuple = new Object[width];
+            tuple[0] = row;
+            return tuple;
+        }
+        return computed.length == 0 ? (Object[]) row : Arrays.copyOf((Object[]) row , width);
+    }
+
+    interface ValueReader{
+        Object read(Object[] tuple);
+    }
+
+    //생성된 클래스 하나와 getter 순서대로의 tuple 슬롯
+    static class Node implements ValueReader{
+        private final MethodHandle constructor;
+        private final int[] slots;
+        private final int[] ownedColumns;
+
+        Node(MethodHandle constructor , int[] slots , int[] ownedColumns){
+            this.constructor = constructor;
+            this.slots = slots;
+            this.ownedColumns = ownedColumns;
+        }
+
+        int[] slots(){
+            return slots;
+        }
+
+        int[] ownedColumns(){
+            return ownedColumns;
+        }
+
+        Object create(Object[] tuple){
+            try{
+                return constructor.invoke(tuple , slots);
+            }catch(RuntimeException | Error e){
+                throw e;
+            }catch(Throwable e){
+                throw new IllegalStateException(e);
+            }
+        }
+
+        //중첩 projection 은 left join 결과가 모두 null 이면(연관 엔티티 없음) null 이다
+        @Override
+        public Object read(Object[] tuple){
+            for (int column : ownedColumns) {
+                if(tuple[column] != null){
+                    return create(tuple);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package study.datajpa.projection;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+
+//네이티브 ResultSet 을 ProjectionEngine 이 만든 구현 클래스로 바로 바인딩한다. TupleBackedMap/프록시 없이 행마다 Object[] 하나와 객체 하나만 만든다.
+//컬럼 라벨(team_name , teamName)과 getter 이름의 대응은 첫 행에서 ResultSetMetaData 로 한 번만 풀고 이후에는 위치로 읽는다.
+//상태가 있으므로 쿼리마다 ProjectionEngine#nativeMapper 로 새로 만든다
+public class NativeProjectionMapper<P> implements RowMapper<P>{
+    private final Class<P> type;
+    private final MethodHandle constructor;
+    private final String[] properties;
+    private final Class<?>[] types;
+    private final int[] slots;
+    private int[] columns;
+
+    NativeProjectionMapper(Class<P> type , MethodHandle constructor , List<String> properties , Class<?>[] types , int[] slots){
+        this.type = type;
+        this.constructor = constructor;
+        this.properties = properties.toArray(new String[0]);
+        this.types = types;
+        this.slots = slots;
+    }
+
+    @Override
+    public P mapRow(ResultSet rs , int rowNum) throws SQLException{
+        if(columns == null){
+            columns = resolve(rs.getMetaData());
+        }
+        Object[] tuple = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            tuple[i] = JdbcUtils.getResultSetValue(rs , columns[i] , types[i]);
+        }
+        try{
+            return type.cast(constructor.invoke(tuple , slots));
+        }catch(RuntimeException | Error e){
+            throw e;
+        }catch(Throwable e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int[] resolve(ResultSetMetaData metaData) throws SQLException{
+        int[] resolved = new int[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            resolved[i] = find(metaData , properties[i]);
+        }
+        return resolved;
+    }
+
+    private int find(ResultSetMetaData metaData , String property) throws SQLException{
+        for (int column = 1; column <= metaData.getColumnCount(); column++) {
+            if(normalize(JdbcUtils.lookupColumnName(metaData , column)).equals(normalize(property))){
+                return column;
+            }
+        }
+        throw new IllegalArgumentException(type.getSimpleName() + "." + property + " has no matching column");
+    }
+
+    private static String normalize(String name){
+        return name.replace("_" , "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,339 @@
+package study.datajpa.projection;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.Entity;
+import java.beans.Introspector;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
+
+//인터페이스 projection 을 (root , projection) 단위로 한 번만 분석/컴파일해서 재사용한다
+//프록시 + SpEL 평가 대신 필요한 컬럼만 select 하고 생성된 클래스의 getter 가 배열 값을 바로 돌려준다
+@Component
+public class ProjectionEngine{
+    static final String ROOT_ALIAS = "m";
+
+    private static final Pattern TEMPLATE = Pattern.compile("^#\\{(.*)}$" , Pattern.DOTALL);
+    private static final Pattern TARGET_PROPERTY = Pattern.compile("^target\\.([A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)*)$");
+    private static final Pattern LITERAL = Pattern.compile("^'((?:[^']|'')*)'$");
+
+    private final Map<Key, CompiledProjection<?>> projections = new ConcurrentHashMap<>();
+    private final Map<Class<?>, MethodHandle> constructors = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <P> CompiledProjection<P> compile(Class<?> root , Class<P> projection){
+        return (CompiledProjection<P>) projections.computeIfAbsent(new Key(root , projection) , key -> new Planner(root).plan(projection));
+    }
+
+    //네이티브 쿼리용. 중첩 projection 과 @Value 없이 getter 마다 컬럼 하나인 평평한 인터페이스만 지원한다
+    public <P> NativeProjectionMapper<P> nativeMapper(Class<P> projection){
+        if(!projection.isInterface()){
+            throw new IllegalArgumentException("only interface projections are supported: " + projection.getName());
+        }
+        List<Method> getters = getters(projection);
+        List<String> properties = new ArrayList<>();
+        Class<?>[] types = new Class<?>[getters.size()];
+        int[] slots = new int[getters.size()];
+        for (int i = 0; i < getters.size(); i++) {
+            Method getter = getters.get(i);
+            if(getter.isAnnotationPresent(Value.class) || getter.getReturnType().isInterface()){
+                throw new IllegalArgumentException("native projections only support getters mapped to a single column: " + getter);
+            }
+            properties.add(propertyName(getter));
+            types[i] = getter.getReturnType();
+            slots[i] = i;
+        }
+        return new NativeProjectionMapper<>(projection , constructor(projection , getters) , properties , types , slots);
+    }
+
+    private class Planner{
+        private final Class<?> root;
+        private final Map<String, Integer> columns = new LinkedHashMap<>();
+        //연관 경로("team") -> join 별칭
+        private final Map<String, String> joins = new LinkedHashMap<>();
+        private final List<CompiledProjection.ValueReader> computed = new ArrayList<>();
+        private final List<CompiledProjection.Node> nodes = new ArrayList<>();
+
+        Planner(Class<?> root){
+            this.root = root;
+        }
+
+        <P> CompiledProjection<P> plan(Class<P> projection){
+            CompiledProjection.Node top = node(projection , root , "");
+            StringBuilder from = new StringBuilder(root.getSimpleName()).append(' ').append(ROOT_ALIAS);
+            joins.forEach((path , alias) -> from.append(" left join ").append(ownerAlias(path)).append('.').append(leaf(path)).append(' ').append(alias));
+            //계산 슬롯은 select 컬럼 뒤에 붙는다. 컬럼 수가 정해진 뒤에 자리표시(-1 , -2 ...)를 실제 위치로 바꾼다
+            for (CompiledProjection.Node node : nodes) {
+                int[] slots = node.slots();
+                for (int i = 0; i < slots.length; i++) {
+                    if(slots[i] < 0){
+                        slots[i] = columns.size() - slots[i] - 1;
+                    }
+                }
+            }
+            return new CompiledProjection<>(projection , String.join(", " , columns.keySet()) , from.toString() , columns.size() ,
+                                            computed.toArray(new CompiledProjection.ValueReader[0]) , top);
+        }
+
+        private CompiledProjection.Node node(Class<?> projection , Class<?> entity , String prefix){
+            if(!projection.isInterface()){
+                throw new IllegalArgumentException("only interface projections are supported: " + projection.getName());
+            }
+            List<Method> getters = getters(projection);
+            int[] slots = new int[getters.size()];
+            List<Integer> owned = new ArrayList<>();
+            for (int i = 0; i < getters.size(); i++) {
+                Method getter = getters.get(i);
+                Value value = getter.getAnnotation(Value.class);
+                if(value != null){
+                    slots[i] = computed(expression(value.value() , entity , prefix , owned));
+                    continue;
+                }
+                PropertyPath path = PropertyPath.from(propertyName(getter) , entity);
+                Class<?> leafType = path.getLeafProperty().getType();
+                if(path.isCollection() || Collection.class.isAssignableFrom(getter.getReturnType())){
+                    throw new IllegalArgumentException("collection projections are not supported: " + getter);
+                }
+                if(getter.getReturnType().isInterface() && isEntity(leafType)){
+                    //중첩 인터페이스 projection: 연관 엔티티를 left join 하고 같은 tuple 위에 재귀로 컴파일
+                    String property = prefix + path.toDotPath();
+                    join(property);
+                    CompiledProjection.Node child = node(getter.getReturnType() , leafType , property + ".");
+                    slots[i] = computed(child);
+                    for (int column : child.ownedColumns()) {
+                        owned.add(column);
+                    }
+                    continue;
+                }
+                int column = column(path.toDotPath() , prefix);
+                owned.add(column);
+                slots[i] = column;
+            }
+            CompiledProjection.Node node = new CompiledProjection.Node(constructor(projection , getters) , slots ,
+                                                                       owned.stream().mapToInt(Integer::intValue).toArray());
+            nodes.add(node);
+            return node;
+        }
+
+        private int computed(CompiledProjection.ValueReader reader){
+            computed.add(reader);
+            return -computed.size();
+        }
+
+        //target.a + ' ' + target.b 형태의 문자열 연결만 컴파일한다. 그 외 SpEL 은 명시적으로 거부
+        private CompiledProjection.ValueReader expression(String template , Class<?> entity , String prefix , List<Integer> owned){
+            Matcher matcher = TEMPLATE.matcher(template.trim());
+            if(!matcher.matches()){
+                throw new IllegalArgumentException("unsupported @Value expression: " + template);
+            }
+            List<Object> parts = new ArrayList<>();
+            for (String token : splitConcat(matcher.group(1) , template)) {
+                Matcher literal = LITERAL.matcher(token);
+                Matcher property = TARGET_PROPERTY.matcher(token);
+                if(literal.matches()){
+                    parts.add(literal.group(1).replace("''" , "'"));
+                }else if(property.matches()){
+                    PropertyPath path = PropertyPath.from(property.group(1) , entity);
+                    int column = column(path.toDotPath() , prefix);
+                    owned.add(column);
+                    parts.add(column);
+                }else{
+                    throw new IllegalArgumentException("unsupported @Value expression: " + template);
+                }
+            }
+            Object[] compiled = parts.toArray();
+            return tuple -> {
+                StringBuilder sb = new StringBuilder();
+                for (Object part : compiled) {
+                    sb.append(part instanceof Integer ? tuple[(Integer) part] : part);
+                }
+                return sb.toString();
+            };
+        }
+
+        //"team.name" 같은 경로는 중간 엔티티를 join 하고 별칭.필드 로 select 한다. embeddable 은 join 없이 점 경로 그대로
+        private int column(String dotPath , String prefix){
+            String[] segments = (prefix + dotPath).split("\\.");
+            Class<?> type = root;
+            String owner = "";
+            for (int i = 0; i < segments.length - 1; i++) {
+                String path = owner.isEmpty() ? segments[i] : owner + "." + segments[i];
+                type = PropertyPath.from(segments[i] , type).getType();
+                if(isEntity(type)){
+                    join(path);
+                }
+                owner = path;
+            }
+            String expression = alias(owner) + "." + segments[segments.length - 1];
+            return columns.computeIfAbsent(expression , e -> columns.size());
+        }
+
+        private void join(String path){
+            int dot = path.lastIndexOf('.');
+            if(dot > 0){
+                join(path.substring(0 , dot));
+            }
+            joins.computeIfAbsent(path , p -> "j" + joins.size());
+        }
+
+        //join 되지 않은 embeddable 경로는 가장 가까운 join 별칭 + 나머지 경로
+        private String alias(String path){
+            if(path.isEmpty()){
+                return ROOT_ALIAS;
+            }
+            String joined = joins.get(path);
+            if(joined != null){
+                return joined;
+            }
+            int dot = path.lastIndexOf('.');
+            return (dot < 0 ? ROOT_ALIAS : alias(path.substring(0 , dot))) + "." + leaf(path);
+        }
+
+        private String ownerAlias(String path){
+            int dot = path.lastIndexOf('.');
+            return dot < 0 ? ROOT_ALIAS : alias(path.substring(0 , dot));
+        }
+    }
+
+    private MethodHandle constructor(Class<?> projection , List<Method> getters){
+        return constructors.computeIfAbsent(projection , type -> {
+            DynamicType.Builder<?> builder = new ByteBuddy()
+                    .subclass(ProjectionRow.class , ConstructorStrategy.Default.IMITATE_SUPER_CLASS_OPENING)
+                    .implement(type)
+                    .name(type.getName() + "$Compiled");
+            MethodDescription value = new MethodDescription.ForLoadedMethod(valueMethod());
+            for (int i = 0; i < getters.size(); i++) {
+                Method getter = getters.get(i);
+                builder = builder.method(named(getter.getName()).and(takesArguments(0)))
+                        .intercept(MethodCall.invoke(value).with(i).withAssigner(Assigner.DEFAULT , Assigner.Typing.DYNAMIC));
+            }
+            Class<?> loaded = builder.make()
+                    .load(type.getClassLoader() , ClassLoadingStrategy.Default.WRAPPER)
+                    .getLoaded();
+            try{
+                return MethodHandles.publicLookup()
+                        .findConstructor(loaded , MethodType.methodType(void.class , Object[].class , int[].class))
+                        .asType(MethodType.methodType(Object.class , Object[].class , int[].class));
+            }catch(ReflectiveOperationException e){
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static Method valueMethod(){
+        try{
+            return ProjectionRow.class.getDeclaredMethod("value" , int.class);
+        }catch(NoSuchMethodException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Method> getters(Class<?> projection){
+        List<Method> getters = new ArrayList<>();
+        for (Method method : projection.getMethods()) {
+            if(method.isDefault() || Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0){
+                continue;
+            }
+            if(method.getReturnType() == void.class || propertyName(method) == null){
+                throw new IllegalArgumentException("not a getter: " + method);
+            }
+            getters.add(method);
+        }
+        //getMethods 순서는 보장되지 않으므로 컬럼 순서가 실행마다 같도록 정렬한다
+        getters.sort(Comparator.comparing(Method::getName));
+        return getters;
+    }
+
+    private static String propertyName(Method getter){
+        String name = getter.getName();
+        if(name.startsWith("get") && name.length() > 3){
+            return Introspector.decapitalize(name.substring(3));
+        }
+        if(name.startsWith("is") && name.length() > 2 && (getter.getReturnType() == boolean.class || getter.getReturnType() == Boolean.class)){
+            return Introspector.decapitalize(name.substring(2));
+        }
+        return null;
+    }
+
+    private static List<String> splitConcat(String expression , String template){
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (char c : expression.toCharArray()) {
+            if(c == '\''){
+                quoted = !quoted;
+            }
+            if(c == '+' && !quoted){
+                tokens.add(current.toString().trim());
+                current.setLength(0);
+            }else{
+                current.append(c);
+            }
+        }
+        if(quoted){
+            throw new IllegalArgumentException("unsupported @Value expression: " + template);
+        }
+        tokens.add(current.toString().trim());
+        return tokens;
+    }
+
+    private static boolean isEntity(Class<?> type){
+        return type.isAnnotationPresent(Entity.class);
+    }
+
+    private static String leaf(String path){
+        return path.substring(path.lastIndexOf('.') + 1);
+    }
+
+    private static class Key{
+        private final Class<?> root;
+        private final Class<?> projection;
+
+        Key(Class<?> root , Class<?> projection){
+            this.root = root;
+            this.projection = projection;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this == o){
+                return true;
+            }
+            if(!(o instanceof Key)){
+                return false;
+            }
+            Key key = (Key) o;
+            return root == key.root && projection == key.projection;
+        }
+
+        @Override
+        public int hashCode(){
+            return Objects.hash(root , projection);
+        }
+    }
+}
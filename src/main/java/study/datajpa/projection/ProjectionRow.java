@@ -0,0 +1,48 @@
+package study.datajpa.projection;
+
+import java.util.Arrays;
+
+//ProjectionEngine 이 만드는 구현 클래스의 부모. getter i 는 tuple[slots[i]] 를 반환 타입으로 캐스팅해서 돌려준다
+//중첩 projection 도 같은 tuple 을 공유하므로 행마다 값 배열을 복사하지 않는다
+public abstract class ProjectionRow{
+    private final Object[] tuple;
+    private final int[] slots;
+
+    protected ProjectionRow(Object[] tuple , int[] slots){
+        this.tuple = tuple;
+        this.slots = slots;
+    }
+
+    protected final Object value(int index){
+        return tuple[slots[index]];
+    }
+
+    private Object[] values(){
+        Object[] values = new Object[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            values[i] = tuple[slots[i]];
+        }
+        return values;
+    }
+
+    @Override
+    public boolean equals(Object o){
+        if(this == o){
+            return true;
+        }
+        if(o == null || getClass() != o.getClass()){
+            return false;
+        }
+        return Arrays.equals(values() , ((ProjectionRow) o).values());
+    }
+
+    @Override
+    public int hashCode(){
+        return Arrays.hashCode(values());
+    }
+
+    @Override
+    public String toString(){
+        return getClass().getInterfaces()[0].getSimpleName() + Arrays.toString(values());
+    }
+}
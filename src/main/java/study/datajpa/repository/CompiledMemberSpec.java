@@ -0,0 +1,99 @@
+package study.datajpa.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+import study.datajpa.entity.Member;
+
+import javax.persistence.Query;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+//MemberSpec 조합을 (어떤 조건, 어떤 조인) 모양으로 식별해 JPQL 을 한 번만 만든다.
+//같은 모양이면 JPQL 문자열이 같으므로 하이버네이트 쿼리 플랜 캐시도 재사용되고 파라미터만 다시 바인딩한다
+public class CompiledMemberSpec{
+    private static final Map<Set<Condition>, String> JPQL_CACHE = new ConcurrentHashMap<>();
+
+    enum Condition{
+        USERNAME("username" , "m.username = :username" , false),
+        TEAM_NAME("teamName" , "t.name = :teamName" , true);
+
+        private final String parameter;
+        private final String predicate;
+        private final boolean teamJoin;
+
+        Condition(String parameter , String predicate , boolean teamJoin){
+            this.parameter = parameter;
+            this.predicate = predicate;
+            this.teamJoin = teamJoin;
+        }
+    }
+
+    private final EnumMap<Condition, Object> parameters = new EnumMap<>(Condition.class);
+
+    public static CompiledMemberSpec where(){
+        return new CompiledMemberSpec();
+    }
+
+    public CompiledMemberSpec username(String username){
+        parameters.put(Condition.USERNAME , username);
+        return this;
+    }
+
+    //MemberSpec.teamName 과 같이 비어 있으면 조건과 조인을 모두 뺀다
+    public CompiledMemberSpec teamName(String teamName){
+        if(!StringUtils.hasLength(teamName)){
+            parameters.remove(Condition.TEAM_NAME);
+        }else{
+            parameters.put(Condition.TEAM_NAME , teamName);
+        }
+        return this;
+    }
+
+    Set<Condition> shape(){
+        return parameters.isEmpty() ? EnumSet.noneOf(Condition.class) : EnumSet.copyOf(parameters.keySet());
+    }
+
+    String jpql(){
+        return JPQL_CACHE.computeIfAbsent(shape() , CompiledMemberSpec::compile);
+    }
+
+    <Q extends Query> Q bind(Q query){
+        parameters.forEach((condition , value) -> query.setParameter(condition.parameter , value));
+        return query;
+    }
+
+    //조건의 별칭(m , t)과 컬럼 이름이 member , team 테이블과 같으므로 파티션 네이티브 쿼리에도 그대로 쓴다
+    String predicates(){
+        return parameters.keySet().stream().map(condition -> condition.predicate).collect(Collectors.joining(" and "));
+    }
+
+    String teamNameCondition(){
+        return (String) parameters.get(Condition.TEAM_NAME);
+    }
+
+    public Specification<Member> toSpecification(){
+        Specification<Member> spec = Specification.where(null);
+        if(parameters.containsKey(Condition.USERNAME)){
+            spec = spec.and(MemberSpec.username((String) parameters.get(Condition.USERNAME)));
+        }
+        if(parameters.containsKey(Condition.TEAM_NAME)){
+            spec = spec.and(MemberSpec.teamName((String) parameters.get(Condition.TEAM_NAME)));
+        }
+        return spec;
+    }
+
+    private static String compile(Set<Condition> shape){
+        StringBuilder jpql = new StringBuilder("select m from Member m");
+        if(shape.stream().anyMatch(condition -> condition.teamJoin)){
+            jpql.append(" join m.team t");
+        }
+        if(!shape.isEmpty()){
+            jpql.append(shape.stream().map(condition -> condition.predicate).collect(Collectors.joining(" and " , " where " , "")));
+        }
+        return jpql.toString();
+    }
+}
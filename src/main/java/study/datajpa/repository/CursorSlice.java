@@ -0,0 +1,21 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Getter
+@RequiredArgsConstructor
+public class CursorSlice<T>{
+    private final List<T> content;
+    private final String nextCursor;
+    private final boolean hasNext;
+
+    public <R> CursorSlice<R> map(Function<? super T, ? extends R> converter){
+        List<R> converted = content.stream().map(converter).collect(Collectors.toList());
+        return new CursorSlice<>(converted , nextCursor , hasNext);
+    }
+}
@@ -0,0 +1,12 @@
+package study.datajpa.repository;
+
+//MemberCursor.decode 가 읽을 수 없는 커서. 리포지토리 예외 변환을 거치지 않도록 IllegalArgumentException 을 상속하지 않는다
+public class InvalidCursorException extends RuntimeException{
+    public InvalidCursorException(String token){
+        super("invalid cursor: " + token);
+    }
+
+    public InvalidCursorException(String token , Throwable cause){
+        super("invalid cursor: " + token , cause);
+    }
+}
@@ -0,0 +1,9 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+
+public interface ItemRepositoryCustom{
+    int upsertAll(Collection<Item> items);
+}
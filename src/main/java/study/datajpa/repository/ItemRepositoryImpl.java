@@ -0,0 +1,82 @@
+package study.datajpa.repository;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.ChangeType;
+import study.datajpa.entity.Item;
+import study.datajpa.outbox.OutboxWriter;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//saveAll 은 isNew() 가 false 인 Item 마다 merge(select) 후 update 를 하므로, 네이티브 upsert 를 batchSize 건씩 JDBC 배치로 보낸다.
+//감사 시각은 DateTimeProvider 에서 한 번만 구해 배치 전체에 같은 값을 쓴다. 전달된 Item 객체는 갱신되지 않는다.
+//JDBC 는 영속성 컨텍스트를 거치지 않으므로 먼저 flush 하고 , 끝나면 영속성 컨텍스트에 있던 같은 id 의 Item 을 준영속으로 만들어 다음 조회가 DB 에서 읽게 한다
+public class ItemRepositoryImpl implements ItemRepositoryCustom{
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager em;
+    private final DateTimeProvider dateTimeProvider;
+    private final OutboxWriter outboxWriter;
+    private final int batchSize;
+    private volatile ItemUpsertDialect dialect;
+
+    public ItemRepositoryImpl(DataSource dataSource ,
+                              EntityManager em ,
+                              DateTimeProvider dateTimeProvider ,
+                              OutboxWriter outboxWriter ,
+                              @Value("${batch.item-upsert.batch-size:1000}") int batchSize){
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.em = em;
+        this.dateTimeProvider = dateTimeProvider;
+        this.outboxWriter = outboxWriter;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @Transactional
+    public int upsertAll(Collection<Item> items){
+        if(items.isEmpty()){
+            return 0;
+        }
+        em.flush();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.from(dateTimeProvider.getNow()
+                                                                      .orElseThrow(() -> new IllegalStateException("no auditing time"))));
+        jdbcTemplate.batchUpdate(dialect().sql() , items , batchSize , (ps , item) -> {
+            ps.setString(1 , item.getId());
+            ps.setTimestamp(2 , now);
+            ps.setTimestamp(3 , now);
+        });
+        List<String> ids = items.stream().map(Item::getId).collect(Collectors.toList());
+        detach(ids);
+        outboxWriter.captureBulk(Item.class , ids , ChangeType.UPSERTED);
+        return items.size();
+    }
+
+    private void detach(List<String> ids){
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Item.class);
+        for (String id : ids) {
+            Object managed = session.getPersistenceContext().getEntity(session.generateEntityKey(id , persister));
+            if(managed != null){
+                em.detach(managed);
+            }
+        }
+    }
+
+    private ItemUpsertDialect dialect(){
+        if(dialect == null){
+            dialect = ItemUpsertDialect.of(jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+        }
+        return dialect;
+    }
+}
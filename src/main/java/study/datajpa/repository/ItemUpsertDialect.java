@@ -0,0 +1,39 @@
+package study.datajpa.repository;
+
+//파라미터 순서는 모두 (id, created_date, last_modified_date). 이미 있는 행은 last_modified_date 만 갱신한다
+enum ItemUpsertDialect{
+    H2("merge into item t " +
+               "using (select cast(? as varchar(255)) id, cast(? as timestamp) created_date, cast(? as timestamp) last_modified_date) s " +
+               "on t.id = s.id " +
+               "when matched then update set t.last_modified_date = s.last_modified_date " +
+               "when not matched then insert (id, created_date, last_modified_date) " +
+               "values (s.id, s.created_date, s.last_modified_date)"),
+    POSTGRESQL("insert into item (id, created_date, last_modified_date) values (?, ?, ?) " +
+                       "on conflict (id) do update set last_modified_date = excluded.last_modified_date"),
+    MYSQL("insert into item (id, created_date, last_modified_date) values (?, ?, ?) " +
+                  "on duplicate key update last_modified_date = values(last_modified_date)");
+
+    private final String sql;
+
+    ItemUpsertDialect(String sql){
+        this.sql = sql;
+    }
+
+    String sql(){
+        return sql;
+    }
+
+    static ItemUpsertDialect of(String databaseProductName){
+        String name = databaseProductName.toLowerCase();
+        if(name.contains("h2")){
+            return H2;
+        }
+        if(name.contains("postgresql")){
+            return POSTGRESQL;
+        }
+        if(name.contains("mysql") || name.contains("mariadb")){
+            return MYSQL;
+        }
+        throw new IllegalStateException("item upsert is not supported on " + databaseProductName);
+    }
+}
@@ -0,0 +1,56 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.StringUtils;
+import study.datajpa.entity.Member;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+//(username, member_id) 키셋 커서. 클라이언트에는 불투명한 토큰으로만 노출한다.
+//username 이 null 인 회원도 있으므로 구분자 뒤 한 글자로 null(N)과 값(V)을 나눈다
+@Getter
+@RequiredArgsConstructor
+public class MemberCursor{
+    private static final char SEPARATOR = ':';
+    private static final char NULL_USERNAME = 'N';
+    private static final char USERNAME = 'V';
+
+    private final String username;
+    private final Long id;
+
+    public static MemberCursor of(Member member){
+        return new MemberCursor(member.getUsername() , member.getId());
+    }
+
+    public static MemberCursor decode(String token){
+        if(!StringUtils.hasText(token)){
+            return null;
+        }
+        String raw;
+        try{
+            raw = new String(Base64.getUrlDecoder().decode(token) , StandardCharsets.UTF_8);
+        }catch(IllegalArgumentException e){
+            throw new InvalidCursorException(token , e);
+        }
+        int idx = raw.indexOf(SEPARATOR);
+        if(idx < 1 || idx + 1 >= raw.length()){
+            throw new InvalidCursorException(token);
+        }
+        char kind = raw.charAt(idx + 1);
+        if((kind == NULL_USERNAME && idx + 2 != raw.length()) || (kind != NULL_USERNAME && kind != USERNAME)){
+            throw new InvalidCursorException(token);
+        }
+        try{
+            return new MemberCursor(kind == NULL_USERNAME ? null : raw.substring(idx + 2) , Long.valueOf(raw.substring(0 , idx)));
+        }catch(NumberFormatException e){
+            throw new InvalidCursorException(token , e);
+        }
+    }
+
+    public String encode(){
+        String raw = id + String.valueOf(SEPARATOR) + (username == null ? String.valueOf(NULL_USERNAME) : USERNAME + username);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,15 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.stream.Stream;
+
+//리포트용 네이티브 조회. JdbcTemplate 으로 ResultSet 을 직접 읽는다
+public interface MemberNativeRepository{
+    Page<MemberProjection> findNativeProjectionPage(Pageable pageable);
+
+    Stream<MemberProjection> streamNativeProjection(int fetchSize);
+
+    long[] findNativeIdsByAge(int age);
+}
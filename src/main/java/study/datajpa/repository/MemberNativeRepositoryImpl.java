@@ -0,0 +1,104 @@
+package study.datajpa.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.paging.TotalCountCache;
+import study.datajpa.projection.ProjectionEngine;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+//findByNativeProjection 은 행마다 TupleBackedMap + 프록시를 만든다. 여기서는 컬럼을 위치로 읽어 생성된 MemberProjection 구현 클래스에 바로 넣는다.
+//JdbcTemplate 은 JpaTransactionManager 가 열어 둔 같은 커넥션을 쓰지만 JPA 자동 flush 는 일어나지 않으므로 조회 전에 직접 flush 한다
+public class MemberNativeRepositoryImpl implements MemberNativeRepository{
+    private static final String SELECT_PROJECTION = "select m.member_id as id, m.username, t.name as team_name " +
+            "from member m left join team t on m.team_id = t.team_id";
+    private static final Map<String, String> SORT_COLUMNS = Map.of("id" , "m.member_id" ,
+                                                                   "username" , "m.username" ,
+                                                                   "teamName" , "t.name");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager em;
+    private final ProjectionEngine projectionEngine;
+    private final TotalCountCache totalCountCache;
+
+    public MemberNativeRepositoryImpl(DataSource dataSource , EntityManager em , ProjectionEngine projectionEngine , TotalCountCache totalCountCache){
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.em = em;
+        this.projectionEngine = projectionEngine;
+        this.totalCountCache = totalCountCache;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberProjection> findNativeProjectionPage(Pageable pageable){
+        flush();
+        String sql = SELECT_PROJECTION + orderBy(pageable.getSort());
+        Object[] args = new Object[0];
+        if(pageable.isPaged()){
+            sql += " limit ? offset ?";
+            args = new Object[]{pageable.getPageSize() , pageable.getOffset()};
+        }
+        return totalCountCache.page("Member" ,
+                                    jdbcTemplate.query(sql , projectionEngine.nativeMapper(MemberProjection.class) , args) ,
+                                    pageable ,
+                                    () -> jdbcTemplate.queryForObject("select count(*) from member" , Long.class));
+    }
+
+    //트랜잭션 안에서 소비하고 반드시 close 해야 한다. 커넥션은 스트림이 닫힐 때까지 잡혀 있다
+    @Override
+    public Stream<MemberProjection> streamNativeProjection(int fetchSize){
+        flush();
+        return jdbcTemplate.queryForStream(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_PROJECTION + " order by m.member_id");
+            ps.setFetchSize(fetchSize);
+            return ps;
+        } , projectionEngine.nativeMapper(MemberProjection.class));
+    }
+
+    //id 만 필요하면 Long 박싱 없이 long[] 로 모은다
+    @Override
+    @Transactional(readOnly = true)
+    public long[] findNativeIdsByAge(int age){
+        flush();
+        return jdbcTemplate.query("select member_id from member where age = ? order by member_id" , (ResultSetExtractor<long[]>) rs -> {
+            LongStream.Builder ids = LongStream.builder();
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+            return ids.build().toArray();
+        } , age);
+    }
+
+    //같은 트랜잭션에서 바꾼 엔티티가 JDBC 조회에 보이게 한다. 트랜잭션 밖이면 쌓인 변경이 없다
+    private void flush(){
+        if(TransactionSynchronizationManager.isActualTransactionActive()){
+            em.flush();
+        }
+    }
+
+    private static String orderBy(Sort sort){
+        if(sort.isUnsorted()){
+            return " order by m.member_id";
+        }
+        StringJoiner orders = new StringJoiner(", " , " order by " , "");
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if(column == null){
+                throw new IllegalArgumentException("unsortable property: " + order.getProperty());
+            }
+            orders.add(column + " " + order.getDirection().name().toLowerCase());
+        }
+        return orders.toString();
+    }
+}
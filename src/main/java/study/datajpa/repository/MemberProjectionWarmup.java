@@ -0,0 +1,22 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.projection.ProjectionEngine;
+
+//첫 요청에서 클래스 생성 비용을 치르지 않도록 기동 시점에 Member projection 들을 미리 컴파일한다
+@Component
+@RequiredArgsConstructor
+public class MemberProjectionWarmup{
+    private final ProjectionEngine projectionEngine;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void compile(){
+        projectionEngine.compile(Member.class , UsernameOnly.class);
+        projectionEngine.compile(Member.class , NestedClosedProjections.class);
+        projectionEngine.compile(Member.class , MemberProjection.class);
+    }
+}
@@ -2,8 +2,12 @@ package study.datajpa.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.async.AsyncRepositoryConfig;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
@@ -12,8 +16,9 @@ import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
-public interface MemberRepository extends JpaRepository<Member,Long>, MemberRepositoryCustom,JpaSpecificationExecutor<Member>{
+public interface MemberRepository extends JpaRepository<Member,Long>, MemberRepositoryCustom, MemberNativeRepository,JpaSpecificationExecutor<Member>{
     List<Member> findByUsernameAndAgeGreaterThan(String username,int age);
 
     List<Member> findHelloBy();
@@ -27,11 +32,12 @@ public interface MemberRepository extends JpaRepository<Member,Long>, MemberRepo
     @Query("select m.username from Member m")
     List<String> findUsernameList();
 
-    @Query("select new study.datajpa.dto.MemberDto(m.id,m.username,t.name) from Member m join m.team t ")
-    List<MemberDto> findMemberDto();
-
-    @Query("select m from Member m where m.username in :names")
-    List<Member> findByNames(@Param("names") List<String> names);
+    //전체 건수가 필요 없으면 pageSize + 1 건만 읽고 count 쿼리를 하지 않는다
+    @Transactional(readOnly = true)
+    @QueryHints(value = {@QueryHint(name = "org.hibernate.readOnly" , value = "true"),
+                         @QueryHint(name = "org.hibernate.flushMode" , value = "MANUAL")})
+    @Query("select new study.datajpa.dto.MemberDto(m.id,m.username,t.name) from Member m left join m.team t")
+    Slice<MemberDto> findMemberDtoSlice(Pageable pageable);
 
     List<Member> findListByUsername(String username);
 
@@ -41,9 +47,26 @@ public interface MemberRepository extends JpaRepository<Member,Long>, MemberRepo
     @Query(value = "select m from Member m left join m.team t",countQuery = "select count(m) from Member m")
     Page<Member> findByAge(int age, Pageable pageable);
 
-    @Modifying(clearAutomatically = true)
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
-    int bulkagePlus(@Param("age") int age);
+    //비동기 조회. repositoryExecutor 스레드에서 트랜잭션이 시작되고 끝나므로 지연 로딩은 쓸 수 없다
+    @Async(AsyncRepositoryConfig.REPOSITORY_EXECUTOR)
+    CompletableFuture<Optional<Member>> findAsyncById(Long id);
+
+    @Async(AsyncRepositoryConfig.REPOSITORY_EXECUTOR)
+    CompletableFuture<List<Member>> findAsyncByUsername(String username);
+
+    @Async(AsyncRepositoryConfig.REPOSITORY_EXECUTOR)
+    @Query(value = "select m from Member m where m.age = :age" , countQuery = "select count(m) from Member m where m.age = :age")
+    CompletableFuture<Page<Member>> findAsyncByAge(@Param("age") int age , Pageable pageable);
+
+    @Async(AsyncRepositoryConfig.REPOSITORY_EXECUTOR)
+    @Query("select new study.datajpa.dto.MemberDto(m.id,m.username,t.name) from Member m join m.team t")
+    CompletableFuture<List<MemberDto>> findMemberDtoAsync();
+
+    //findMemberDtoPage 의 count 캐시를 같이 쓰도록 위임한다
+    @Async(AsyncRepositoryConfig.REPOSITORY_EXECUTOR)
+    default CompletableFuture<Page<MemberDto>> findMemberDtoPageAsync(Pageable pageable){
+        return CompletableFuture.completedFuture(findMemberDtoPage(pageable));
+    }
 
     @Query("select m from Member m left join fetch m.team")
     List<Member> findMemberFetchJoin();
@@ -60,9 +83,11 @@ public interface MemberRepository extends JpaRepository<Member,Long>, MemberRepo
     List<Member> findEntityGraphByUsername(@Param("username") String username);
 
 
+    @Transactional(readOnly = true)
     @QueryHints( value = @QueryHint(name ="org.hibernate.readOnly",value = "true"))
     Member findReadOnlyByUsername(String username);
 
+    @Transactional
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     List<Member> findLockByUsername(String username);
 
@@ -1,9 +1,33 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom{
     List<Member> findMemberCustom();
+
+    List<Member> findByNames(List<String> names);
+
+    List<MemberDto> findMemberDto();
+
+    Page<MemberDto> findMemberDtoPage(Pageable pageable);
+
+    Page<Member> findPageByAge(int age , Pageable pageable);
+
+    CursorSlice<Member> findByCursor(String cursor , int size);
+
+    Stream<MemberDto> streamMemberDto(int fetchSize);
+
+    int saveAllBatched(Iterable<Member> members , int batchSize);
+
+    List<Member> findAll(CompiledMemberSpec spec);
+
+    <P> List<P> findProjectedByUsername(String username , Class<P> type);
+
+    int bulkagePlus(int age);
 }
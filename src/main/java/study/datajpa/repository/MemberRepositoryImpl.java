@@ -1,18 +1,234 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.ChangeType;
 import study.datajpa.entity.Member;
+import study.datajpa.outbox.OutboxWriter;
+import study.datajpa.paging.TotalCountCache;
+import study.datajpa.partition.MemberPartitionRouter;
+import study.datajpa.projection.CompiledProjection;
+import study.datajpa.projection.ProjectionEngine;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
+    //in_clause_parameter_padding 으로 2의 거듭제곱까지 채워지므로 2의 거듭제곱으로 둔다 (오라클 1000개 제한 이하)
+    static final int MAX_IN_LIST_SIZE = 512;
 
     private final EntityManager em;
+    private final TotalCountCache totalCountCache;
+    private final ProjectionEngine projectionEngine;
+    private final OutboxWriter outboxWriter;
+    //partition.member.enabled 일 때만 있다
+    private final ObjectProvider<MemberPartitionRouter> partitionRouter;
 
     @Override
     public List<Member> findMemberCustom(){
         return em.createQuery("select m from Member m" , Member.class).getResultList();
     }
+
+    //중복을 제거하고 MAX_IN_LIST_SIZE 씩 나눠 조회한 뒤 합친다
+    @Override
+    public List<Member> findByNames(List<String> names){
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(names));
+        List<Member> result = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += MAX_IN_LIST_SIZE) {
+            List<String> chunk = distinct.subList(from , Math.min(distinct.size() , from + MAX_IN_LIST_SIZE));
+            result.addAll(em.createQuery("select m from Member m where m.username in :names" , Member.class)
+                                  .setParameter("names" , chunk)
+                                  .getResultList());
+        }
+        return result;
+    }
+
+    //팀이 있는 회원만. 파티션이 있으면 파티션에서 읽는다
+    @Override
+    public List<MemberDto> findMemberDto(){
+        MemberPartitionRouter router = partitionRouter.getIfAvailable();
+        if(router != null && router.isActive()){
+            return router.findMemberDto();
+        }
+        return em.createQuery("select new study.datajpa.dto.MemberDto(m.id,m.username,t.name) from Member m join m.team t " , MemberDto.class)
+                .getResultList();
+    }
+
+    //엔티티를 만들지 않고 DTO 로 바로 조회한다. 목록 API 용. 전체 건수는 TotalCountCache 에서 재사용한다
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberDto> findMemberDtoPage(Pageable pageable){
+        String jpql = QueryUtils.applySorting("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) " +
+                                                      "from Member m left join m.team t" , pageable.getSort() , "m");
+        TypedQuery<MemberDto> query = em.createQuery(jpql , MemberDto.class)
+                .setHint("org.hibernate.readOnly" , true)
+                .setHint("org.hibernate.flushMode" , "MANUAL");
+        return totalCountCache.page("Member" , paged(query , pageable).getResultList() , pageable ,
+                                    () -> em.createQuery("select count(m) from Member m" , Long.class).getSingleResult());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Member> findPageByAge(int age , Pageable pageable){
+        String jpql = QueryUtils.applySorting("select m from Member m where m.age = :age" , pageable.getSort() , "m");
+        TypedQuery<Member> query = em.createQuery(jpql , Member.class).setParameter("age" , age);
+        return totalCountCache.page("Member:age=" + age , paged(query , pageable).getResultList() , pageable ,
+                                    () -> em.createQuery("select count(m) from Member m where m.age = :age" , Long.class)
+                                            .setParameter("age" , age)
+                                            .getSingleResult());
+    }
+
+    //offset 대신 마지막 (username, id) 이후부터 읽는다. count 쿼리 없음.
+    //username 이 null 인 회원은 맨 앞에 두고 , null 과의 비교는 참이 되지 않으므로 null 커서는 조건을 따로 쓴다
+    @Override
+    public CursorSlice<Member> findByCursor(String cursor , int size){
+        MemberCursor after = MemberCursor.decode(cursor);
+        TypedQuery<Member> query;
+        if(after == null){
+            query = em.createQuery("select m from Member m order by m.username asc nulls first, m.id asc" , Member.class);
+        }else if(after.getUsername() == null){
+            query = em.createQuery("select m from Member m " +
+                                           "where m.username is not null " +
+                                           "or (m.username is null and m.id > :id) " +
+                                           "order by m.username asc nulls first, m.id asc" , Member.class)
+                    .setParameter("id" , after.getId());
+        }else{
+            query = em.createQuery("select m from Member m " +
+                                           "where m.username > :username " +
+                                           "or (m.username = :username and m.id > :id) " +
+                                           "order by m.username asc nulls first, m.id asc" , Member.class)
+                    .setParameter("username" , after.getUsername())
+                    .setParameter("id" , after.getId());
+        }
+        List<Member> members = query.setMaxResults(size + 1).getResultList();
+        boolean hasNext = members.size() > size;
+        List<Member> content = hasNext ? members.subList(0 , size) : members;
+        String nextCursor = hasNext ? MemberCursor.of(content.get(size - 1)).encode() : null;
+        return new CursorSlice<>(content , nextCursor , hasNext);
+    }
+
+    //트랜잭션 안에서 소비하고 반드시 close 해야 한다. fetchSize 건마다 영속성 컨텍스트를 비운다
+    @Override
+    public Stream<MemberDto> streamMemberDto(int fetchSize){
+        ScrollableResults results = em.createQuery("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) " +
+                                                           "from Member m left join m.team t order by m.id" , MemberDto.class)
+                .unwrap(Query.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        Spliterator<MemberDto> spliterator = new Spliterators.AbstractSpliterator<MemberDto>(Long.MAX_VALUE , Spliterator.ORDERED | Spliterator.NONNULL){
+            private long count;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super MemberDto> action){
+                if(!results.next()){
+                    return false;
+                }
+                action.accept((MemberDto) results.get(0));
+                if(++count % fetchSize == 0){
+                    em.clear();
+                }
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator , false).onClose(results :: close);
+    }
+
+    //batchSize 는 hibernate.jdbc.batch_size 와 맞춰야 한 번의 flush 가 한 번의 배치가 된다
+    //호출한 쪽 트랜잭션의 다른 엔티티는 그대로 두고 여기서 저장한 회원만 영속성 컨텍스트에서 뗀다
+    @Override
+    @Transactional
+    public int saveAllBatched(Iterable<Member> members , int batchSize){
+        if(batchSize < 1){
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        int count = 0;
+        List<Member> batch = new ArrayList<>(batchSize);
+        for (Member member : members) {
+            em.persist(member);
+            batch.add(member);
+            count++;
+            if(batch.size() == batchSize){
+                flushAndDetach(batch);
+            }
+        }
+        flushAndDetach(batch);
+        return count;
+    }
+
+    private void flushAndDetach(List<Member> batch){
+        em.flush();
+        batch.forEach(em :: detach);
+        batch.clear();
+    }
+
+    private static <T> TypedQuery<T> paged(TypedQuery<T> query , Pageable pageable){
+        if(pageable.isPaged()){
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query;
+    }
+
+    //팀 이름 조건이 있고 파티션이 있으면 그 팀의 파티션만 읽는다
+    @Override
+    public List<Member> findAll(CompiledMemberSpec spec){
+        MemberPartitionRouter router = partitionRouter.getIfAvailable();
+        String teamName = spec.teamNameCondition();
+        if(router != null && teamName != null && router.isActive()){
+            return router.findMembersByTeamName(teamName , spec.predicates() , spec::bind);
+        }
+        return spec.bind(em.createQuery(spec.jpql() , Member.class)).getResultList();
+    }
+
+    //findProjections2ByUsername 과 같은 결과를 프록시/SpEL 없이 필요한 컬럼만 조회해서 만든다
+    @Override
+    @Transactional(readOnly = true)
+    public <P> List<P> findProjectedByUsername(String username , Class<P> type){
+        CompiledProjection<P> projection = projectionEngine.compile(Member.class , type);
+        return projection.mapAll(em.createQuery(projection.jpql("where m.username = :username"))
+                                         .setParameter("username" , username)
+                                         .getResultList());
+    }
+
+    //벌크 update 는 엔티티 이벤트를 거치지 않으므로 대상 id 를 select ... for update 로 잠근 뒤 그 id 목록으로만 갱신하고 같은 목록을 outbox 에 남긴다.
+    //잠근 뒤에 조건을 만족하게 된 행은 이번 갱신 대상이 아니다. 영속성 컨텍스트와 count 캐시는 비운다
+    @Override
+    @Transactional
+    public int bulkagePlus(int age){
+        em.flush();
+        @SuppressWarnings("unchecked")
+        List<Number> locked = em.createNativeQuery("select member_id from member where age >= :age order by member_id for update")
+                .setParameter("age" , age)
+                .getResultList();
+        int updated = 0;
+        for (int from = 0; from < locked.size(); from += MAX_IN_LIST_SIZE) {
+            List<Long> chunk = new ArrayList<>();
+            locked.subList(from , Math.min(locked.size() , from + MAX_IN_LIST_SIZE)).forEach(id -> chunk.add(id.longValue()));
+            updated += em.createQuery("update Member m set m.age = m.age + 1, m.version = m.version + 1 where m.id in :ids")
+                    .setParameter("ids" , chunk)
+                    .executeUpdate();
+            outboxWriter.captureBulk(Member.class , chunk , ChangeType.UPDATED , "age" , "version");
+        }
+        em.clear();
+        totalCountCache.invalidate();
+        return updated;
+    }
 }
@@ -10,7 +10,7 @@ import javax.persistence.criteria.*;
 public class MemberSpec{
     public static Specification<Member> teamName(final String teamName){
         return (root , query , builder) -> {
-            if(StringUtils.isEmpty(teamName)){
+            if(!StringUtils.hasLength(teamName)){
                 return null;
             }
             Join<Member, Team> t= root.join("team" , JoinType.INNER);//회원과 조인
@@ -0,0 +1,106 @@
+package study.datajpa.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.BulkJobCheckpointRepository;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//청크마다 커밋되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+@SpringBootTest
+class MemberAgeBulkUpdaterTest{
+    //다른 테스트가 남긴 회원과 겹치지 않도록 큰 나이를 쓴다
+    static final int AGE = 100_000;
+
+    @Autowired
+    MemberAgeBulkUpdater bulkUpdater;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    BulkJobCheckpointRepository checkpointRepository;
+    @Autowired
+    EntityManagerFactory emf;
+
+    List<Member> members = new ArrayList<>();
+    String jobId = "test-" + UUID.randomUUID();
+
+    @AfterEach
+    void tearDown(){
+        //배치가 버전을 올렸으므로 들고 있는 엔티티 대신 id 로 지운다
+        members.forEach(member -> memberRepository.deleteById(member.getId()));
+        checkpointRepository.deleteById(jobId);
+    }
+
+    @Test
+    void agePlusInChunks(){
+        //given
+        saveMembers(AGE - 1 , AGE , AGE + 1 , AGE + 2 , AGE + 3);
+        List<BulkUpdateProgress> progresses = new ArrayList<>();
+        //when
+        BulkUpdateProgress result = bulkUpdater.agePlus(jobId , AGE , 2 , progresses :: add);
+        //then
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getProcessed()).isEqualTo(4);
+        assertThat(progresses).extracting(BulkUpdateProgress :: getChunkUpdated).containsExactly(2 , 2 , 0);
+        assertThat(ages()).containsExactly(AGE - 1 , AGE + 1 , AGE + 2 , AGE + 3 , AGE + 4);
+    }
+
+    @Test
+    void resumeAfterFailure(){
+        //given
+        saveMembers(AGE , AGE , AGE , AGE , AGE);
+        //when 첫 청크 커밋 후 중단
+        assertThatThrownBy(() -> bulkUpdater.agePlus(jobId , AGE , 2 , progress -> {
+            throw new IllegalStateException("crash");
+        })).isInstanceOf(IllegalStateException.class);
+        BulkUpdateProgress result = bulkUpdater.agePlus(jobId , AGE , 2 , progress -> {});
+        //then 이미 처리한 회원은 다시 올리지 않는다
+        assertThat(result.getProcessed()).isEqualTo(5);
+        assertThat(ages()).containsOnly(AGE + 1);
+        assertThat(bulkUpdater.agePlus(jobId , AGE , 2 , progress -> {}).getProcessed()).isEqualTo(5);
+        assertThat(ages()).containsOnly(AGE + 1);
+    }
+
+    @Test
+    void evictOnlyUpdatedMembersFromCache(){
+        //given
+        saveMembers(AGE - 1 , AGE);
+        Long untouched = members.get(0).getId();
+        Long updated = members.get(1).getId();
+        //캐시에 올린다
+        ages();
+        Cache cache = emf.getCache();
+        assertThat(cache.contains(Member.class , untouched)).isTrue();
+        //when
+        bulkUpdater.agePlus(jobId , AGE , 2 , progress -> {});
+        //then 대상이 아닌 회원은 캐시에 남고 갱신한 회원만 빠진다
+        assertThat(cache.contains(Member.class , untouched)).isTrue();
+        assertThat(cache.contains(Member.class , updated)).isFalse();
+        assertThat(ages()).containsExactly(AGE - 1 , AGE + 1);
+    }
+
+    private void saveMembers(int... ages){
+        for (int i = 0; i < ages.length; i++) {
+            members.add(memberRepository.save(new Member("bulk" + i , ages[i])));
+        }
+    }
+
+    private List<Integer> ages(){
+        List<Integer> ages = new ArrayList<>();
+        for (Member member : members) {
+            ages.add(memberRepository.findById(member.getId()).get().getAge());
+        }
+        return ages;
+    }
+}
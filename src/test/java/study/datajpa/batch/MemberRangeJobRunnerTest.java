@@ -0,0 +1,107 @@
+package study.datajpa.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//구간마다 커밋되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+@SpringBootTest
+class MemberRangeJobRunnerTest{
+    static final int AGE = 200_000;
+
+    @Autowired
+    MemberRangeJobRunner runner;
+    @Autowired
+    MemberRepository memberRepository;
+
+    List<Member> members = new ArrayList<>();
+
+    @AfterEach
+    void tearDown(){
+        //배치가 버전을 올렸으므로 들고 있는 엔티티 대신 id 로 지운다
+        members.forEach(member -> memberRepository.deleteById(member.getId()));
+    }
+
+    @Test
+    void runRangesInParallel(){
+        //given
+        saveMembers(10);
+        //when
+        RangeJobResult result = runner.run("test-backfill" , new RangeJobOptions(3 , 4 , 1) , this :: agePlus);
+        //then
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getRows()).isGreaterThanOrEqualTo(10);
+        assertThat(ages()).containsOnly(AGE + 1);
+    }
+
+    @Test
+    void retryFailedRange(){
+        //given
+        saveMembers(6);
+        Set<Long> failedOnce = ConcurrentHashMap.newKeySet();
+        //when 회원마다 처음 한 번은 실패하고 재시도에서 성공
+        RangeJobResult result = runner.run("test-retry" , ranges(2) , new RangeJobOptions(2 , 2 , 3) , member -> {
+            agePlus(member);
+            if(failedOnce.add(member.getId())){
+                throw new IllegalStateException("transient");
+            }
+        });
+        //then 실패한 시도는 롤백되어 한 번만 반영된다
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getRows()).isEqualTo(6);
+        assertThat(ages()).containsOnly(AGE + 1);
+    }
+
+    @Test
+    void reportExhaustedRange(){
+        //given
+        saveMembers(4);
+        Long poisoned = members.get(0).getId();
+        //when
+        RangeJobResult result = runner.run("test-failure" , ranges(2) , new RangeJobOptions(2 , 2 , 2) , member -> {
+            if(member.getId().equals(poisoned)){
+                throw new IllegalStateException("poisoned");
+            }
+            agePlus(member);
+        });
+        //then 실패한 구간만 남고 나머지는 반영된다
+        assertThat(result.getFailedRanges()).hasSize(1);
+        assertThat(result.getFailedRanges().get(0).getFrom()).isLessThanOrEqualTo(poisoned);
+        assertThat(result.getFailedRanges().get(0).getTo()).isGreaterThanOrEqualTo(poisoned);
+        assertThat(memberRepository.findById(members.get(members.size() - 1).getId()).get().getAge()).isEqualTo(AGE + 1);
+    }
+
+    private void agePlus(Member member){
+        if(member.getAge() == AGE){
+            member.setAge(AGE + 1);
+        }
+    }
+
+    private List<IdRange> ranges(long rangeSize){
+        return IdRange.split(members.get(0).getId() , members.get(members.size() - 1).getId() , rangeSize);
+    }
+
+    private void saveMembers(int count){
+        for (int i = 0; i < count; i++) {
+            members.add(memberRepository.save(new Member("range" + i , AGE)));
+        }
+    }
+
+    private List<Integer> ages(){
+        List<Integer> ages = new ArrayList<>();
+        for (Member member : members) {
+            ages.add(memberRepository.findById(member.getId()).get().getAge());
+        }
+        return ages;
+    }
+}
@@ -0,0 +1,176 @@
+package study.datajpa.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.monitoring.StatementCounter;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+//조회가 다른 스레드에서 커밋된 데이터를 읽으므로 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+//@AutoConfigureMockMvc 는 컨텍스트를 새로 띄워 스키마를 다시 만들므로 기존 컨텍스트로 MockMvc 를 만든다
+@SpringBootTest
+class MemberControllerTest{
+    @Autowired
+    WebApplicationContext context;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    ThreadPoolTaskExecutor repositoryExecutor;
+    @Autowired
+    StatementCounter statementCounter;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    EntityManagerFactory emf;
+
+    MockMvc mockMvc;
+    Member member;
+    Team team;
+
+    @BeforeEach
+    void setUp(){
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @AfterEach
+    void tearDown(){
+        if(member != null){
+            memberRepository.deleteById(member.getId());
+        }
+        if(team != null){
+            teamRepository.deleteById(team.getId());
+        }
+    }
+
+    @Test
+    void findMemberAsync() throws Exception{
+        //given
+        member = memberRepository.save(new Member("asyncMember" , 10));
+        long completed = repositoryExecutor.getThreadPoolExecutor().getCompletedTaskCount();
+        //when
+        MvcResult result = mockMvc.perform(get("/members/" + member.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("asyncMember"));
+        assertThat(repositoryExecutor.getThreadPoolExecutor().getCompletedTaskCount()).isGreaterThan(completed);
+    }
+
+    @Test
+    void cachedMemberIsLoadedWithoutQuery() throws Exception{
+        //given 저장한 회원은 커밋 후 2차 캐시에 들어간다
+        member = memberRepository.save(new Member("cachedMember" , 10));
+        assertThat(emf.getCache().contains(Member.class , member.getId())).isTrue();
+        //when
+        try (StatementCounter.Scope scope = statementCounter.open()) {
+            MvcResult result = mockMvc.perform(get("/members/" + member.getId())).andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("cachedMember"));
+            //then
+            assertThat(scope.executed()).isZero();
+        }
+    }
+
+    @Test
+    void findMemberTeam() throws Exception{
+        //given
+        team = teamRepository.save(new Team("asyncTeam"));
+        member = memberRepository.save(new Member("asyncTeamMember" , 10 , team));
+        //when
+        MvcResult result = mockMvc.perform(get("/members/" + member.getId() + "/team"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("asyncTeam"));
+    }
+
+    @Test
+    void memberWithoutTeamIsNotFound() throws Exception{
+        //given
+        member = memberRepository.save(new Member("asyncNoTeam" , 10));
+        //when
+        MvcResult result = mockMvc.perform(get("/members/" + member.getId() + "/team"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void unknownMemberIsNotFound() throws Exception{
+        //when
+        MvcResult result = mockMvc.perform(get("/members/" + Long.MAX_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception{
+        //then
+        mockMvc.perform(get("/members").param("cursor" , "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void asyncStatementsCountForRequest() throws Exception{
+        //given
+        member = memberRepository.save(new Member("asyncCount" , 10));
+        //2차 캐시에 있으면 SQL 없이 읽으므로 뺀다
+        emf.getCache().evict(Member.class , member.getId());
+        //when 요청 스레드의 카운터로 repositoryExecutor 에서 실행된 SQL 도 센다
+        try (StatementCounter.Scope scope = statementCounter.open()) {
+            MvcResult byId = mockMvc.perform(get("/members/" + member.getId())).andReturn();
+            mockMvc.perform(asyncDispatch(byId)).andExpect(status().isOk());
+            long afterFind = scope.executed();
+            MvcResult list = mockMvc.perform(get("/members").param("size" , "1")).andReturn();
+            mockMvc.perform(asyncDispatch(list)).andExpect(status().isOk());
+            //then
+            assertThat(afterFind).isGreaterThan(0);
+            assertThat(scope.executed()).isGreaterThan(afterFind);
+        }
+    }
+
+    @Test
+    void listAsync() throws Exception{
+        //given
+        member = memberRepository.save(new Member("asyncList" , 10));
+        //when
+        MvcResult result = mockMvc.perform(get("/members").param("size" , "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.totalElements").isNumber());
+    }
+}
@@ -0,0 +1,87 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//인메모리 H2 에 붙은 실제 Hikari 풀로 확인한다
+class AdaptivePoolSizerTest{
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    AdaptivePoolProperties properties = new AdaptivePoolProperties();
+    HikariDataSource dataSource;
+    AdaptivePoolSizer sizer;
+
+    @BeforeEach
+    void setUp(){
+        properties.setMinSize(2);
+        properties.setMaxSize(6);
+        properties.setStep(2);
+        properties.setShrinkAfterIdleChecks(2);
+        dataSource = new HikariDataSource();
+        dataSource.setPoolName("adaptive-test");
+        dataSource.setJdbcUrl("jdbc:h2:mem:adaptive-pool");
+        dataSource.setMaximumPoolSize(2);
+        dataSource.setMinimumIdle(1);
+        dataSource.setConnectionTimeout(5000);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        sizer = new AdaptivePoolSizer(Map.of("adaptive-test" , dataSource) , meterRegistry , properties);
+    }
+
+    @AfterEach
+    void tearDown(){
+        dataSource.close();
+    }
+
+    @Test
+    void growWhileThreadsWait() throws Exception{
+        //given 커넥션 두 개를 모두 빌려 간 상태에서 한 스레드가 기다린다
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+            try{
+                dataSource.getConnection().close();
+            }catch(Exception e){
+                throw new IllegalStateException(e);
+            }
+        });
+        while(dataSource.getHikariPoolMXBean().getThreadsAwaitingConnection() == 0){
+            Thread.sleep(10);
+        }
+        //when
+        sizer.adjust();
+        //then 늘어난 풀에서 대기하던 스레드가 커넥션을 얻는다
+        assertThat(dataSource.getHikariConfigMXBean().getMaximumPoolSize()).isEqualTo(4);
+        waiting.get(5 , TimeUnit.SECONDS);
+        first.close();
+        second.close();
+        assertThat(meterRegistry.find("hikaricp.connections.acquire").tag("pool" , "adaptive-test").timer()).isNotNull();
+    }
+
+    @Test
+    void shrinkAfterIdleChecks() throws Exception{
+        //given
+        dataSource.getHikariConfigMXBean().setMaximumPoolSize(6);
+        dataSource.getConnection().close();
+        //when 사용률이 낮은 점검이 shrinkAfterIdleChecks 번 이어지면
+        sizer.adjust();
+        assertThat(dataSource.getHikariConfigMXBean().getMaximumPoolSize()).isEqualTo(6);
+        sizer.adjust();
+        //then
+        assertThat(dataSource.getHikariConfigMXBean().getMaximumPoolSize()).isEqualTo(4);
+        sizer.adjust();
+        sizer.adjust();
+        sizer.adjust();
+        sizer.adjust();
+        assertThat(dataSource.getHikariConfigMXBean().getMaximumPoolSize()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,103 @@
+package study.datajpa.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//로컬 H2 인스턴스 세 개(primary, replica 두 개)로 라우팅을 확인한다
+class ReplicationRoutingDataSourceTest{
+    EmbeddedDatabase primary;
+    EmbeddedDatabase replica0;
+    EmbeddedDatabase replica1;
+    Map<String, DataSource> replicas;
+
+    @BeforeEach
+    void setUp(){
+        primary = h2("routing-primary");
+        replica0 = h2("routing-replica0");
+        replica1 = h2("routing-replica1");
+        replicas = new LinkedHashMap<>();
+        replicas.put("replica-0" , replica0);
+        replicas.put("replica-1" , replica1);
+    }
+
+    @AfterEach
+    void tearDown(){
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        primary.shutdown();
+        replica0.shutdown();
+        replica1.shutdown();
+    }
+
+    @Test
+    void writeGoesToPrimary() throws SQLException{
+        ReplicationRoutingDataSource routing = routing(new ReplicaLagMonitor(replicas , ReplicaLagProbe.connectionCheck() , Duration.ofSeconds(1)));
+        assertThat(urlOf(routing)).contains("routing-primary");
+    }
+
+    @Test
+    void readOnlyRoundRobinOverReplicas() throws SQLException{
+        ReplicationRoutingDataSource routing = routing(new ReplicaLagMonitor(replicas , ReplicaLagProbe.connectionCheck() , Duration.ofSeconds(1)));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(urlOf(routing)).contains("routing-replica0");
+        assertThat(urlOf(routing)).contains("routing-replica1");
+        assertThat(urlOf(routing)).contains("routing-replica0");
+    }
+
+    @Test
+    void laggingReplicaIsSkipped() throws SQLException{
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicas ,
+                                                          (key , dataSource) -> "replica-0".equals(key) ? Duration.ofMinutes(1) : Duration.ZERO ,
+                                                          Duration.ofSeconds(1));
+        monitor.refresh();
+        ReplicationRoutingDataSource routing = routing(monitor);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(urlOf(routing)).contains("routing-replica1");
+        assertThat(urlOf(routing)).contains("routing-replica1");
+    }
+
+    @Test
+    void fallbackToPrimaryWhenNoReplicaUsable() throws SQLException{
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicas ,
+                                                          (key , dataSource) -> {
+                                                              throw new SQLException("down");
+                                                          } ,
+                                                          Duration.ofSeconds(1));
+        monitor.refresh();
+        ReplicationRoutingDataSource routing = routing(monitor);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(urlOf(routing)).contains("routing-primary");
+    }
+
+    private ReplicationRoutingDataSource routing(ReplicaLagMonitor monitor){
+        ReplicationRoutingDataSource routing = new ReplicationRoutingDataSource(primary , replicas , monitor);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static EmbeddedDatabase h2(String name){
+        return new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name)
+                .build();
+    }
+
+    private static String urlOf(DataSource dataSource) throws SQLException{
+        try(Connection connection = dataSource.getConnection()){
+            return connection.getMetaData().getURL();
+        }
+    }
+}
@@ -4,13 +4,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.audit.TransactionScopedValue;
 import study.datajpa.repository.MemberRepository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,6 +28,8 @@ class MemberTest{
 
     @Autowired
     MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
     @Test
     public void testEntity(){
         Team teamA = new Team("teamA");
@@ -66,4 +73,33 @@ class MemberTest{
         System.out.println("findMember.getCreatedBy() = " + findMember.getCreatedBy());
         System.out.println("findMember.getLastModifiedBy() = " + findMember.getLastModifiedBy());
     }
+
+    @Test
+    void auditorResolvedOncePerTransaction(){
+        //given
+        Member member1 = memberRepository.save(new Member("auditor1"));
+        Member member2 = memberRepository.save(new Member("auditor2"));
+        //when
+        em.flush();
+        //then
+        assertNotNull(member1.getCreatedBy());
+        assertEquals(member1.getCreatedBy() , member2.getCreatedBy());
+        assertEquals(member1.getCreatedBy() , member1.getLastModifiedBy());
+    }
+
+    @Test
+    void requiresNewTransactionGetsItsOwnValue(){
+        //given
+        AtomicInteger sequence = new AtomicInteger();
+        TransactionScopedValue<Integer> value = new TransactionScopedValue<>(sequence :: incrementAndGet);
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        //when
+        Integer outer = value.get();
+        Integer inner = requiresNew.execute(status -> value.get());
+        //then 안쪽 트랜잭션은 새 값을 쓰고 , 끝나면 바깥 트랜잭션의 값으로 돌아온다
+        assertEquals(1 , outer);
+        assertEquals(2 , inner);
+        assertEquals(outer , value.get());
+    }
 }
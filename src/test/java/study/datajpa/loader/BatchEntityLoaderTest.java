@@ -0,0 +1,84 @@
+package study.datajpa.loader;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchEntityLoaderTest{
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    List<List<Long>> batches = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown(){
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void coalesceWithinWindow(){
+        //given 홀수 id 만 존재
+        BatchEntityLoader<String, Long> loader = loader(Duration.ofMillis(50) , 100);
+        //when
+        CompletableFuture<Optional<String>> first = loader.load(1L);
+        CompletableFuture<Optional<String>> duplicate = loader.load(1L);
+        CompletableFuture<Optional<String>> missing = loader.load(2L);
+        CompletableFuture<Optional<String>> third = loader.load(3L);
+        //then 중복 id 는 한 번만 조회하고 한 배치로 나간다
+        assertThat(first.join()).contains("entity1");
+        assertThat(duplicate).isSameAs(first);
+        assertThat(missing.join()).isEmpty();
+        assertThat(third.join()).contains("entity3");
+        assertThat(batches).containsExactly(List.of(1L , 2L , 3L));
+    }
+
+    @Test
+    void dispatchWhenBatchIsFull(){
+        //given window 가 길어도
+        BatchEntityLoader<String, Long> loader = loader(Duration.ofMinutes(1) , 2);
+        //when
+        Map<Long, String> result = loader.loadMany(List.of(1L , 3L , 5L , 7L)).join();
+        //then maxBatchSize 마다 바로 조회한다
+        assertThat(result).containsOnlyKeys(1L , 3L , 5L , 7L);
+        assertThat(batches).containsExactly(List.of(1L , 3L) , List.of(5L , 7L));
+    }
+
+    @Test
+    void failWholeBatch(){
+        //given
+        BatchEntityLoader<String, Long> loader = new BatchEntityLoader<>("failing" , ids -> {
+            throw new IllegalStateException("db down");
+        } , this :: idOf , scheduler , Runnable :: run , Duration.ofMillis(10) , 100);
+        //when
+        CompletableFuture<Optional<String>> first = loader.load(1L);
+        CompletableFuture<Optional<String>> second = loader.load(3L);
+        //then
+        assertThatThrownBy(first :: join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(second :: join).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    private BatchEntityLoader<String, Long> loader(Duration window , int maxBatchSize){
+        return new BatchEntityLoader<>("test" , this :: findAllById , this :: idOf , scheduler , Runnable :: run , window , maxBatchSize);
+    }
+
+    private List<String> findAllById(Collection<Long> ids){
+        batches.add(new ArrayList<>(ids));
+        return ids.stream().filter(id -> id % 2 == 1).map(id -> "entity" + id).collect(Collectors.toList());
+    }
+
+    private Long idOf(String entity){
+        return Long.valueOf(entity.substring("entity".length()));
+    }
+}
@@ -0,0 +1,82 @@
+package study.datajpa.locking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//시도마다 별도 트랜잭션으로 커밋되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+//한 행에 4개 스레드가 몰리면 진 쪽이 연속으로 여러 번 질 수 있어 재시도 횟수를 늘려서 실행한다
+@SpringBootTest(properties = "locking.optimistic.max-attempts=10")
+class OptimisticUpdaterTest{
+    @Autowired
+    OptimisticUpdater updater;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Value("${locking.optimistic.max-attempts}")
+    int maxAttempts;
+
+    Member member;
+
+    @AfterEach
+    void tearDown(){
+        memberRepository.deleteById(member.getId());
+    }
+
+    @Test
+    void concurrentUpdatesAreRetried(){
+        //given
+        member = memberRepository.save(new Member("optimistic" , 0));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        //when 4개 스레드가 같은 회원을 10번씩 수정
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < 10; j++) {
+                    updater.update(Member.class , member.getId() , m -> m.setAge(m.getAge() + 1));
+                }
+            } , executor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        executor.shutdown();
+        //then 갱신이 유실되지 않는다
+        Member found = memberRepository.findById(member.getId()).get();
+        assertThat(found.getAge()).isEqualTo(40);
+        assertThat(found.getVersion()).isEqualTo(40L);
+    }
+
+    @Test
+    void giveUpAfterMaxAttempts(){
+        //given
+        member = memberRepository.save(new Member("optimisticConflict" , 0));
+        double exhausted = meterRegistry.counter("optimistic.update.exhausted" , "operation" , "Member").count();
+        //when 매 시도마다 다른 트랜잭션이 먼저 수정
+        assertThatThrownBy(() -> updater.update(Member.class , member.getId() , m -> {
+            updater.execute("interloper" , () -> {
+                Member other = memberRepository.findById(member.getId()).get();
+                other.setAge(other.getAge() + 1);
+                return other;
+            });
+            m.setAge(-1);
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+        //then
+        assertThat(meterRegistry.counter("optimistic.update.exhausted" , "operation" , "Member").count()).isEqualTo(exhausted + 1);
+        assertThat(memberRepository.findById(member.getId()).get().getAge()).isEqualTo(maxAttempts);
+    }
+}
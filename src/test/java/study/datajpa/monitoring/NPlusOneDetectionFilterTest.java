@@ -0,0 +1,79 @@
+package study.datajpa.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.servlet.FilterChain;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class NPlusOneDetectionFilterTest{
+    @Autowired
+    StatementCounter statementCounter;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    void failOverThreshold(){
+        //given 회원마다 쿼리를 한 번씩 실행하는 요청
+        List<String> usernames = List.of("nPlusOne1" , "nPlusOne2" , "nPlusOne3");
+        usernames.forEach(username -> memberRepository.save(new Member(username , 10)));
+        memberRepository.flush();
+        FilterChain perMember = (request , response) ->
+                usernames.forEach(username -> memberRepository.findByUsernameAndAgeGreaterThan(username , 0));
+        NPlusOneDetectionFilter failing = new NPlusOneDetectionFilter(statementCounter , 2 , true);
+        NPlusOneDetectionFilter warning = new NPlusOneDetectionFilter(statementCounter , 2 , false);
+        //then
+        assertThatThrownBy(() -> failing.doFilter(new MockHttpServletRequest("GET" , "/members") , new MockHttpServletResponse() , perMember))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("executed 3 statements");
+        assertThatCode(() -> warning.doFilter(new MockHttpServletRequest("GET" , "/members") , new MockHttpServletResponse() , perMember))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    void failBeforeResponseIsCommitted() throws Exception{
+        //given 본문을 쓰고 flush 까지 하는 요청
+        FilterChain writing = (request , response) -> {
+            memberRepository.count();
+            response.getWriter().write("members");
+            response.flushBuffer();
+        };
+        MockHttpServletResponse over = new MockHttpServletResponse();
+        MockHttpServletResponse under = new MockHttpServletResponse();
+        //when
+        assertThatThrownBy(() -> new NPlusOneDetectionFilter(statementCounter , 0 , true)
+                .doFilter(new MockHttpServletRequest("GET" , "/members") , over , writing))
+                .isInstanceOf(IllegalStateException.class);
+        new NPlusOneDetectionFilter(statementCounter , 1 , true)
+                .doFilter(new MockHttpServletRequest("GET" , "/members") , under , writing);
+        //then 임계치를 넘으면 아무것도 내보내지 않고 , 통과하면 본문을 그대로 내보낸다
+        assertThat(over.isCommitted()).isFalse();
+        assertThat(over.getContentAsString()).isEmpty();
+        assertThat(under.getContentAsString()).isEqualTo("members");
+    }
+
+    @Test
+    void requestExceptionIsNotMasked(){
+        //given
+        NPlusOneDetectionFilter failing = new NPlusOneDetectionFilter(statementCounter , 0 , true);
+        FilterChain broken = (request , response) -> {
+            memberRepository.count();
+            throw new IllegalArgumentException("broken request");
+        };
+        //then
+        assertThatThrownBy(() -> failing.doFilter(new MockHttpServletRequest("GET" , "/members") , new MockHttpServletResponse() , broken))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,116 @@
+package study.datajpa.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamJpaRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest{
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamJpaRepository teamJpaRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void springDataRepository(){
+        //given
+        memberRepository.save(new Member("metrics1" , 10));
+        memberRepository.save(new Member("metrics2" , 20));
+        //when
+        memberRepository.findByUsernameAndAgeGreaterThan("metrics2" , 10);
+        //then
+        Timer timer = meterRegistry.find("repository.invocations")
+                .tag("repository" , "MemberRepository")
+                .tag("method" , "findByUsernameAndAgeGreaterThan")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+        DistributionSummary rows = meterRegistry.find("repository.rows")
+                .tag("repository" , "MemberRepository")
+                .tag("method" , "findByUsernameAndAgeGreaterThan")
+                .summary();
+        assertThat(rows).isNotNull();
+        assertThat(rows.totalAmount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void jpaRepositoryClass(){
+        //when
+        teamJpaRepository.save(new Team("metricsTeam"));
+        teamJpaRepository.findAll();
+        //then
+        Timer timer = meterRegistry.find("repository.invocations")
+                .tag("repository" , "TeamJpaRepository")
+                .tag("method" , "findAll")
+                .timer();
+        assertThat(timer).isNotNull();
+        DistributionSummary statements = meterRegistry.find("repository.statements")
+                .tag("repository" , "TeamJpaRepository")
+                .tag("method" , "findAll")
+                .summary();
+        assertThat(statements.totalAmount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void overloadsHaveSeparateSignatures(){
+        //given
+        memberRepository.save(new Member("metricsOverload" , 10));
+        //when
+        memberRepository.findAll();
+        memberRepository.findAll(PageRequest.of(0 , 1));
+        //then
+        Timer all = meterRegistry.find("repository.invocations")
+                .tag("repository" , "MemberRepository")
+                .tag("signature" , "findAll()")
+                .timer();
+        Timer paged = meterRegistry.find("repository.invocations")
+                .tag("repository" , "MemberRepository")
+                .tag("signature" , "findAll(Pageable)")
+                .timer();
+        assertThat(all).isNotNull();
+        assertThat(paged).isNotNull();
+        assertThat(paged.getId().getTag("method")).isEqualTo("findAll");
+    }
+
+    @Test
+    void asyncMethodIsRecordedWhenFutureCompletes() throws Exception{
+        //given
+        DistributionSummary rows = meterRegistry.summary("repository.rows" ,
+                                                         "repository" , "MemberRepository" ,
+                                                         "method" , "findAsyncByUsername" ,
+                                                         "signature" , "findAsyncByUsername(String)");
+        long countBefore = rows.count();
+        double totalBefore = rows.totalAmount();
+        //when 결과가 없는 비동기 조회
+        List<Member> result = memberRepository.findAsyncByUsername("metricsAsyncNobody").join();
+        long deadline = System.currentTimeMillis() + 5000;
+        while(rows.count() == countBefore && System.currentTimeMillis() < deadline){
+            Thread.sleep(10);
+        }
+        //then future 자체가 아니라 완료된 결과 목록의 건수(0)로 기록된다
+        assertThat(result).isEmpty();
+        assertThat(rows.count()).isEqualTo(countBefore + 1);
+        assertThat(rows.totalAmount()).isEqualTo(totalBefore);
+        Timer timer = meterRegistry.find("repository.invocations")
+                .tag("method" , "findAsyncByUsername")
+                .tag("exception" , "none")
+                .timer();
+        assertThat(timer).isNotNull();
+    }
+}
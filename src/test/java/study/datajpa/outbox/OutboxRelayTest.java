@@ -0,0 +1,163 @@
+package study.datajpa.outbox;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.ChangeType;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//outbox 는 커밋되어야 기록되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다.
+//테스트에서는 스케줄된 relay 를 꺼 두고(config/application.yml) relay() 를 직접 부른다
+@SpringBootTest
+class OutboxRelayTest{
+    //다른 테스트가 남긴 회원과 겹치지 않도록 큰 나이를 쓴다
+    static final int AGE = 300_000;
+
+    @Autowired
+    OutboxRelay relay;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    OutboxWriter outboxWriter;
+
+    List<ChangeRecord> received = new CopyOnWriteArrayList<>();
+    ChangeListener recorder = received::addAll;
+    List<Long> memberIds = new ArrayList<>();
+    List<Long> teamIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp(){
+        relay.addListener(recorder);
+    }
+
+    @AfterEach
+    void tearDown(){
+        relay.removeListener(recorder);
+        memberIds.forEach(memberRepository::deleteById);
+        teamIds.forEach(teamRepository::deleteById);
+        relay.relay();
+    }
+
+    @Test
+    void entityChangesInCommitOrder(){
+        //given
+        Member member = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = teamRepository.save(new Team("outboxTeam"));
+            teamIds.add(team.getId());
+            return memberRepository.save(new Member("outboxMember" , AGE , team));
+        });
+        memberIds.add(member.getId());
+        //when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.findById(member.getId()).orElseThrow().setAge(AGE + 1));
+        relay.relay();
+        //then 생성 , 수정 순서로 한 번씩 전달되고 수정은 바뀐 속성을 담는다
+        List<ChangeRecord> records = records("Member" , member.getId());
+        assertThat(records).extracting(ChangeRecord::getChangeType).containsExactly(ChangeType.CREATED , ChangeType.UPDATED);
+        assertThat(records.get(1).getChangedProperties()).contains("age");
+        assertThat(records("Team" , teamIds.get(0))).extracting(ChangeRecord::getChangeType).containsExactly(ChangeType.CREATED);
+    }
+
+    @Test
+    void captureRequiresTransaction(){
+        //then 트랜잭션 완료 처리가 없으면 세션 버퍼가 비워지지 않으므로 받지 않는다
+        assertThatThrownBy(() -> outboxWriter.capture(null , Member.class , 1L , ChangeType.CREATED , List.of()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rolledBackChangesAreNotRecorded(){
+        //when
+        Member member = new TransactionTemplate(transactionManager).execute(status -> {
+            Member saved = memberRepository.saveAndFlush(new Member("outboxRollback" , AGE));
+            status.setRollbackOnly();
+            return saved;
+        });
+        relay.relay();
+        //then
+        assertThat(records("Member" , member.getId())).isEmpty();
+    }
+
+    @Test
+    void bulkUpdateRecordsEachMember(){
+        //given
+        List<Long> bulkIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            bulkIds.add(memberRepository.save(new Member("outboxBulk" + i , AGE + 10)).getId());
+        }
+        Long skipped = memberRepository.save(new Member("outboxBulkSkipped" , AGE + 9)).getId();
+        memberIds.addAll(bulkIds);
+        memberIds.add(skipped);
+        relay.relay();
+        received.clear();
+        //when
+        int updated = memberRepository.bulkagePlus(AGE + 10);
+        relay.relay();
+        //then 갱신된 회원만 기록된다
+        assertThat(updated).isEqualTo(3);
+        for (Long id : bulkIds) {
+            List<ChangeRecord> records = records("Member" , id);
+            assertThat(records).extracting(ChangeRecord::getChangeType).containsExactly(ChangeType.UPDATED);
+            assertThat(records.get(0).getChangedProperties()).containsExactly("age" , "version");
+        }
+        assertThat(records("Member" , skipped)).isEmpty();
+    }
+
+    @Test
+    void failedDeliveryIsRetried(){
+        //given 처음 한 번은 실패하는 리스너
+        AtomicInteger attempts = new AtomicInteger();
+        List<ChangeRecord> delivered = new CopyOnWriteArrayList<>();
+        ChangeListener flaky = records -> {
+            if(attempts.getAndIncrement() == 0){
+                throw new IllegalStateException("sink down");
+            }
+            delivered.addAll(records);
+        };
+        relay.relay();
+        relay.addListener(flaky);
+        try{
+            //when
+            Long id = memberRepository.save(new Member("outboxRetry" , AGE)).getId();
+            memberIds.add(id);
+            for (int i = 0; i < 3 && delivered.stream().noneMatch(record -> record.getEntityId().equals(String.valueOf(id))); i++) {
+                try{
+                    relay.relay();
+                }catch(IllegalStateException e){
+                    //다음 호출에서 같은 배치부터 다시 보낸다
+                }
+            }
+            //then 실패한 배치를 다시 받는다
+            assertThat(attempts.get()).isGreaterThanOrEqualTo(2);
+            assertThat(delivered).extracting(ChangeRecord::getEntityId).contains(String.valueOf(id));
+        }finally{
+            relay.removeListener(flaky);
+        }
+    }
+
+    private List<ChangeRecord> records(String entityType , Long id){
+        return received.stream()
+                .filter(record -> record.getEntityType().equals(entityType) && record.getEntityId().equals(String.valueOf(id)))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,125 @@
+package study.datajpa.paging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TotalCountCacheTest{
+    //다른 테스트가 남긴 회원과 겹치지 않는 나이
+    static final int AGE = 300_000;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TotalCountCache totalCountCache;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp(){
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("count" + i , AGE));
+        }
+        em.flush();
+        em.clear();
+        totalCountCache.invalidate();
+    }
+
+    @Test
+    void skipCountWhenPageIsShort(){
+        //given
+        double skipped = count("skipped");
+        double executed = count("executed");
+        //when 마지막 페이지가 pageSize 보다 짧다
+        Page<Member> page = memberRepository.findPageByAge(AGE , PageRequest.of(1 , 3));
+        //then
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(count("skipped")).isEqualTo(skipped + 1);
+        assertThat(count("executed")).isEqualTo(executed);
+    }
+
+    @Test
+    void reuseCachedCount(){
+        //given
+        double executed = count("executed");
+        double cached = count("cached");
+        //when
+        memberRepository.findPageByAge(AGE , PageRequest.of(0 , 2));
+        Page<Member> page = memberRepository.findPageByAge(AGE , PageRequest.of(1 , 2 , Sort.by("username")));
+        //then
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).extracting(Member :: getUsername).containsExactly("count2" , "count3");
+        assertThat(count("executed")).isEqualTo(executed + 1);
+        assertThat(count("cached")).isEqualTo(cached + 1);
+    }
+
+    @Test
+    void invalidateOnSave(){
+        //given
+        memberRepository.findPageByAge(AGE , PageRequest.of(0 , 2));
+        //when
+        memberRepository.save(new Member("count5" , AGE));
+        em.flush();
+        //then
+        assertThat(memberRepository.findPageByAge(AGE , PageRequest.of(0 , 2)).getTotalElements()).isEqualTo(6);
+    }
+
+    @Test
+    void invalidateOnBulkUpdate(){
+        //given
+        memberRepository.findPageByAge(AGE , PageRequest.of(0 , 2));
+        //when 모두 AGE + 1 이 된다
+        memberRepository.bulkagePlus(AGE);
+        //then
+        assertThat(memberRepository.findPageByAge(AGE , PageRequest.of(0 , 2)).getTotalElements()).isZero();
+    }
+
+    @Test
+    void sliceWithoutCount(){
+        //given
+        double executed = count("executed");
+        //when
+        Slice<MemberDto> slice = memberRepository.findMemberDtoSlice(PageRequest.of(0 , 2));
+        //then
+        assertThat(slice.getContent()).hasSize(2);
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(count("executed")).isEqualTo(executed);
+    }
+
+    @Test
+    void oneSynchronizationPerTransaction(){
+        //given setUp 에서 이미 한 번 등록됨
+        int registered = TransactionSynchronizationManager.getSynchronizations().size();
+        //when 저장마다 무효화된다
+        for (int i = 0; i < 100; i++) {
+            memberRepository.save(new Member("countMany" + i , AGE));
+        }
+        em.flush();
+        //then
+        assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(registered);
+    }
+
+    private double count(String outcome){
+        return meterRegistry.counter("paging.count" , "outcome" , outcome).count();
+    }
+}
@@ -0,0 +1,140 @@
+package study.datajpa.partition;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import study.datajpa.dto.MemberDto;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//스키마 세 개(p0 , p1 , p2)로 나눈 내장 H2 에서 확인한다
+class PartitionedMemberRepositoryTest{
+    static final int PARTITIONS = 3;
+
+    EmbeddedDatabase database;
+    JdbcTemplate jdbcTemplate;
+    ExecutorService executor = Executors.newFixedThreadPool(PARTITIONS);
+    PartitionedMemberRepository repository;
+
+    @BeforeEach
+    void setUp(){
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("create table team (team_id bigint primary key, name varchar(255))");
+        jdbcTemplate.execute("create table member (member_id bigint primary key, username varchar(255), age int not null, team_id bigint)");
+        for (long teamId = 1; teamId <= 6; teamId++) {
+            jdbcTemplate.update("insert into team values (? , ?)" , teamId , "team" + teamId);
+        }
+        //회원 60 명을 팀 1~6 에 돌아가며 넣고 , 10 명마다 한 명은 팀 없음
+        for (long id = 1; id <= 60; id++) {
+            jdbcTemplate.update("insert into member values (? , ? , ? , ?)" , id , "member" + id , (int) id , id % 10 == 0 ? null : id % 6 + 1);
+        }
+        repository = new PartitionedMemberRepository(database , new MemberPartitionDdl("p" , PARTITIONS) , executor);
+        repository.rebuild();
+    }
+
+    @AfterEach
+    void tearDown(){
+        executor.shutdownNow();
+        database.shutdown();
+    }
+
+    @Test
+    void partitionsSplitByTeamId(){
+        //then 모든 회원이 자기 팀의 파티션에 한 번씩만 들어간다
+        int total = 0;
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            List<Long> teamIds = jdbcTemplate.queryForList("select team_id from p" + partition + ".member" , Long.class);
+            for (Long teamId : teamIds) {
+                assertThat(repository.partitionOf(teamId)).isEqualTo(partition);
+            }
+            total += teamIds.size();
+        }
+        assertThat(total).isEqualTo(60);
+    }
+
+    @Test
+    void teamFilterPrunesToOnePartition(){
+        //given 팀 4 가 없는 파티션 뷰를 지워도
+        int partition = repository.partitionOf(4L);
+        assertThat(repository.partitionsForTeam("team4")).containsExactly(partition);
+        for (int other = 0; other < PARTITIONS; other++) {
+            if(other != partition){
+                jdbcTemplate.execute("drop view p" + other + ".member");
+            }
+        }
+        //when
+        List<MemberDto> byName = repository.findMemberDtoByTeamName("team4");
+        List<MemberDto> byId = repository.findMemberDtoByTeamId(4L);
+        //then 해당 파티션만 읽으므로 조회된다
+        List<Long> expected = jdbcTemplate.queryForList("select member_id from member where team_id = 4 order by member_id" , Long.class);
+        assertThat(byName).extracting(MemberDto::getId).containsExactlyElementsOf(expected);
+        assertThat(byName).extracting(MemberDto::getTeamName).containsOnly("team4");
+        assertThat(byId).isEqualTo(byName);
+        assertThat(repository.findMemberDtoByTeamName("noSuchTeam")).isEmpty();
+    }
+
+    @Test
+    void scatterGatherMergesInIdOrder(){
+        //when
+        List<MemberDto> all = repository.findMemberDto(0);
+        List<MemberDto> first = repository.findMemberDto(15);
+        //then 단일 테이블을 id 순으로 읽은 것과 같다
+        List<Long> expected = jdbcTemplate.queryForList("select member_id from member order by member_id" , Long.class);
+        assertThat(all).extracting(MemberDto::getId).containsExactlyElementsOf(expected);
+        assertThat(first).extracting(MemberDto::getId).containsExactlyElementsOf(expected.subList(0 , 15));
+        assertThat(all.stream().filter(dto -> dto.getTeamName() == null).map(MemberDto::getId).collect(Collectors.toList()))
+                .containsExactly(10L , 20L , 30L , 40L , 50L , 60L);
+    }
+
+    @Test
+    void negativeTeamIdUsesSamePartitionInSqlAndJava(){
+        //given
+        jdbcTemplate.update("insert into team values (? , ?)" , -4L , "negative");
+        jdbcTemplate.update("insert into member values (? , ? , ? , ?)" , 61L , "member61" , 61 , -4L);
+        //then
+        int partition = repository.partitionOf(-4L);
+        assertThat(partition).isBetween(0 , PARTITIONS - 1);
+        assertThat(jdbcTemplate.queryForList("select member_id from p" + partition + ".member where team_id = -4" , Long.class))
+                .containsExactly(61L);
+        assertThat(repository.findMemberDtoByTeamName("negative")).extracting(MemberDto::getId).containsExactly(61L);
+    }
+
+    @Test
+    void changesAreVisibleWithoutRebuild(){
+        //given 회원 1 의 팀을 바꾸고 , 회원 2 를 지우고 , 회원 61 을 추가
+        long newTeam = 1L % 6 + 2;
+        jdbcTemplate.update("update member set team_id = ? , username = 'moved' where member_id = 1" , newTeam);
+        jdbcTemplate.update("delete from member where member_id = 2");
+        jdbcTemplate.update("insert into member values (? , ? , ? , ?)" , 61L , "member61" , 61 , 3L);
+        //then 파티션이 member 위의 뷰이므로 JDBC 로 바꾼 것도 바로 바뀐 팀의 파티션에서 읽힌다
+        assertThat(repository.findMemberDtoByTeamId(newTeam)).extracting(MemberDto::getUsername).contains("moved");
+        assertThat(repository.findMemberDtoByTeamId(1L % 6 + 1)).extracting(MemberDto::getId).doesNotContain(1L);
+        assertThat(repository.findMemberDtoByTeamId(3L)).extracting(MemberDto::getId).contains(61L).doesNotContain(2L);
+        List<Long> expected = jdbcTemplate.queryForList("select member_id from member order by member_id" , Long.class);
+        assertThat(repository.findMemberDto(0)).extracting(MemberDto::getId).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void mergeKeepsLimit(){
+        //given
+        List<List<MemberDto>> sorted = List.of(List.of(dto(1) , dto(4) , dto(7)) , List.of() , List.of(dto(2) , dto(3) , dto(9)));
+        //when
+        List<MemberDto> merged = PartitionedMemberRepository.merge(sorted , 4);
+        //then
+        assertThat(merged).extracting(MemberDto::getId).containsExactly(1L , 2L , 3L , 4L);
+    }
+
+    private static MemberDto dto(long id){
+        return new MemberDto(id , "member" + id , null);
+    }
+}
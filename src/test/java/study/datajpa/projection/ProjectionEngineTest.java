@@ -0,0 +1,105 @@
+package study.datajpa.projection;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.monitoring.StatementCounter;
+import study.datajpa.repository.MemberProjection;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UsernameOnly;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+@SpringBootTest
+@Transactional
+class ProjectionEngineTest{
+    @Autowired
+    ProjectionEngine projectionEngine;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    StatementCounter statementCounter;
+
+    interface UnsupportedExpression{
+        @Value("#{target.username.toUpperCase()}")
+        String getUsername();
+    }
+
+    @Test
+    void narrowsSelectToProjectedColumns(){
+        //when
+        CompiledProjection<UsernameOnly> open = projectionEngine.compile(Member.class , UsernameOnly.class);
+        CompiledProjection<MemberProjection> closed = projectionEngine.compile(Member.class , MemberProjection.class);
+        //then
+        Assertions.assertThat(open.jpql(null)).isEqualTo("select m.age, m.username from Member m");
+        Assertions.assertThat(closed.jpql(null)).isEqualTo("select m.id, j0.name, m.username from Member m left join m.team j0");
+        Assertions.assertThat(projectionEngine.compile(Member.class , UsernameOnly.class)).isSameAs(open);
+    }
+
+    @Test
+    void sameValuesAsSpringDataProxies(){
+        //given
+        Team team = new Team("projectionTeam");
+        em.persist(team);
+        em.persist(new Member("projectionMember" , 33 , team));
+        em.persist(new Member("projectionNoTeam" , 7 , null));
+        em.flush();
+        em.clear();
+        //when
+        UsernameOnly open = memberRepository.findProjectedByUsername("projectionMember" , UsernameOnly.class).get(0);
+        NestedClosedProjections nested = memberRepository.findProjectedByUsername("projectionMember" , NestedClosedProjections.class).get(0);
+        NestedClosedProjections noTeam = memberRepository.findProjectedByUsername("projectionNoTeam" , NestedClosedProjections.class).get(0);
+        List<MemberProjection> closed = memberRepository.findProjectedByUsername("projectionMember" , MemberProjection.class);
+        //then
+        UsernameOnly proxy = memberRepository.findProjectionsByUsername("projectionMember").get(0);
+        Assertions.assertThat(open.getUsername()).isEqualTo(proxy.getUsername()).isEqualTo("projectionMember 33");
+        Assertions.assertThat(open.getAge()).isEqualTo(33);
+        Assertions.assertThat(Proxy.isProxyClass(open.getClass())).isFalse();
+        Assertions.assertThat(open).isInstanceOf(ProjectionRow.class);
+
+        Assertions.assertThat(nested.getUsername()).isEqualTo("projectionMember");
+        Assertions.assertThat(nested.getTeam().getName()).isEqualTo("projectionTeam");
+        Assertions.assertThat(noTeam.getTeam()).isNull();
+
+        Assertions.assertThat(closed).hasSize(1);
+        Assertions.assertThat(closed.get(0).getId()).isNotNull();
+        Assertions.assertThat(closed.get(0).getTeamName()).isEqualTo("projectionTeam");
+    }
+
+    @Test
+    void nestedClosedProjectionIsOneFlatQuery(){
+        //given
+        Team team = new Team("flatTeam");
+        em.persist(team);
+        em.persist(new Member("flatMember" , 20 , team));
+        em.flush();
+        em.clear();
+        CompiledProjection<NestedClosedProjections> projection = projectionEngine.compile(Member.class , NestedClosedProjections.class);
+        //when
+        long before = statementCounter.current();
+        NestedClosedProjections result = memberRepository.findProjectedByUsername("flatMember" , NestedClosedProjections.class).get(0);
+        //then 리포지토리도 엔진에 캐시된 같은 계획을 쓰고 , 팀 엔티티 컬럼 없이 m.username , t.name 두 컬럼만 조회한다
+        Assertions.assertThat(projectionEngine.compile(Member.class , NestedClosedProjections.class)).isSameAs(projection);
+        Assertions.assertThat(projection.columns()).containsExactly("j0.name" , "m.username");
+        Assertions.assertThat(projection.jpql(null)).isEqualTo("select j0.name, m.username from Member m left join m.team j0");
+        Assertions.assertThat(statementCounter.current() - before).isEqualTo(1);
+        Assertions.assertThat(result.getUsername()).isEqualTo("flatMember");
+        Assertions.assertThat(result.getTeam().getName()).isEqualTo("flatTeam");
+    }
+
+    @Test
+    void rejectsUnsupportedExpression(){
+        Assertions.assertThatThrownBy(() -> projectionEngine.compile(Member.class , UnsupportedExpression.class))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -3,14 +3,23 @@ package study.datajpa.repository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Item;
 
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 class ItemRepositoryTest{
     @Autowired
     ItemRepository itemRepository;
+    @Autowired
+    EntityManager em;
 
     @Test
     void save() throws Exception{
@@ -21,4 +30,35 @@ class ItemRepositoryTest{
 
         //then
     }
-}
\ No newline at end of file
+
+    @Test
+    @Transactional
+    void upsertAll(){
+        //given
+        itemRepository.save(new Item("upsert-0"));
+        em.flush();
+        em.clear();
+        //영속성 컨텍스트에 있는 Item 과 아직 flush 하지 않은 Item
+        Item managed = itemRepository.findById("upsert-0").get();
+        //DB 는 마이크로초까지만 저장하므로 메모리의 값이 아니라 다시 읽은 값과 비교한다
+        LocalDateTime createdDate = managed.getCreatedDate();
+        Item pending = itemRepository.save(new Item("upsert-1"));
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            items.add(new Item("upsert-" + i));
+        }
+        //when
+        int upserted = itemRepository.upsertAll(items);
+        em.flush();
+        //then 기존 행은 생성 시각을 유지하고 새 행은 한 번에 같은 시각으로 들어간다
+        assertThat(upserted).isEqualTo(2500);
+        assertThat(em.contains(managed)).isFalse();
+        assertThat(em.contains(pending)).isFalse();
+        Item updated = itemRepository.findById("upsert-0").get();
+        assertThat(updated.getCreatedDate()).isEqualTo(createdDate);
+        Item inserted = itemRepository.findById("upsert-2499").get();
+        assertThat(inserted.getCreatedDate()).isEqualTo(inserted.getLastModifiedDate());
+        assertThat(updated.getLastModifiedDate()).isEqualTo(inserted.getLastModifiedDate());
+        assertThat(itemRepository.findAllById(List.of("upsert-1" , "upsert-1000" , "upsert-2000"))).hasSize(3);
+    }
+}
@@ -1,6 +1,8 @@
 package study.datajpa.repository;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -11,12 +13,19 @@ import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.monitoring.StatementCounter;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -31,6 +40,8 @@ class MemberRepositoryTest{
 
     @Autowired
     TeamRepository teamRepository;
+    @Autowired
+    StatementCounter statementCounter;
     @PersistenceContext
     EntityManager em;
 
@@ -271,6 +282,26 @@ class MemberRepositoryTest{
         Assertions.assertThat(result.size()).isEqualTo(1);
     }
 
+    @Test
+    void compiledSpec(){
+        //given
+        Team team = new Team("compiledTeam");
+        em.persist(team);
+        em.persist(new Member("compiled1" , 0 , team));
+        em.persist(new Member("compiled2" , 0 , team));
+        em.flush();
+        em.clear();
+        //when
+        CompiledMemberSpec spec = CompiledMemberSpec.where().username("compiled1").teamName("compiledTeam");
+        List<Member> result = memberRepository.findAll(spec);
+        //then 같은 모양은 같은 JPQL 을 재사용하고, 빈 팀 이름은 조인까지 빠진다
+        assertThat(result).extracting(Member :: getUsername).containsExactly("compiled1");
+        assertThat(memberRepository.findAll(spec.toSpecification())).extracting(Member :: getUsername).containsExactly("compiled1");
+        assertThat(CompiledMemberSpec.where().username("other").teamName("otherTeam").jpql()).isSameAs(spec.jpql());
+        assertThat(CompiledMemberSpec.where().username("compiled2").teamName("").jpql()).doesNotContain("join");
+        assertThat(memberRepository.findAll(CompiledMemberSpec.where().username("compiled2").teamName(null))).hasSize(1);
+    }
+
     @Test
     void queryByExample() {
         //given
@@ -329,4 +360,192 @@ class MemberRepositoryTest{
             System.out.println("memberProjection.getTeamName() = " + memberProjection.getTeamName());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void cursorPaging(){
+        //given
+        memberRepository.save(new Member("cursor3" , 10));
+        memberRepository.save(new Member("cursor1" , 10));
+        memberRepository.save(new Member("cursor2" , 10));
+        memberRepository.save(new Member("cursor2" , 20));
+        memberRepository.save(new Member("cursor4" , 10));
+        List<Long> nullNames = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            nullNames.add(memberRepository.save(new Member(null , 10)).getId());
+        }
+        //when
+        List<Member> read = new ArrayList<>();
+        String cursor = null;
+        CursorSlice<Member> slice;
+        do{
+            slice = memberRepository.findByCursor(cursor , 2);
+            assertThat(slice.getContent().size()).isLessThanOrEqualTo(2);
+            read.addAll(slice.getContent());
+            cursor = slice.getNextCursor();
+        }while(slice.isHasNext());
+        //then
+        assertThat(read.size()).isEqualTo(memberRepository.count());
+        assertThat(read).extracting(Member::getUsername)
+                .filteredOn(name -> name != null && name.startsWith("cursor"))
+                .containsExactly("cursor1" , "cursor2" , "cursor2" , "cursor3" , "cursor4");
+        //username 이 null 인 회원은 맨 앞에 한 번씩 나온다
+        assertThat(read).extracting(Member::getId).containsAll(nullNames).doesNotHaveDuplicates();
+        assertThat(read.get(0).getUsername()).isNull();
+    }
+
+    @Test
+    void malformedCursor(){
+        //then
+        assertThatThrownBy(() -> memberRepository.findByCursor("not a cursor" , 2)).isInstanceOf(InvalidCursorException.class);
+        String unknownKind = Base64.getUrlEncoder().encodeToString("1:Xname".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> memberRepository.findByCursor(unknownKind , 2)).isInstanceOf(InvalidCursorException.class);
+        assertThat(MemberCursor.decode(new MemberCursor(null , 7L).encode()).getUsername()).isNull();
+        assertThat(MemberCursor.decode(new MemberCursor("" , 7L).encode()).getUsername()).isEmpty();
+    }
+
+    @Test
+    void streamMemberDto(){
+        //given
+        Team team = new Team("streamTeam");
+        em.persist(team);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("stream" + i , i , team));
+        }
+        em.flush();
+        em.clear();
+        //when
+        List<MemberDto> result;
+        try(Stream<MemberDto> stream = memberRepository.streamMemberDto(2)){
+            result = stream.filter(dto -> "streamTeam".equals(dto.getTeamName()))
+                    .collect(Collectors.toList());
+        }
+        //then
+        assertThat(result).extracting(MemberDto::getUsername)
+                .containsExactly("stream0" , "stream1" , "stream2" , "stream3" , "stream4");
+    }
+
+    @Test
+    void saveAllBatched(){
+        //given
+        Team team = new Team("batchTeam");
+        teamRepository.save(team);
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            members.add(new Member("batch" + i , i , team));
+        }
+        long before = memberRepository.count();
+        //when
+        int saved = memberRepository.saveAllBatched(members , 100);
+        //then
+        assertThat(saved).isEqualTo(250);
+        assertThat(memberRepository.count()).isEqualTo(before + 250);
+        assertThat(members).allMatch(member -> member.getId() != null);
+        //저장한 회원만 분리되고 호출한 쪽의 팀은 계속 관리된다
+        assertThat(members).noneMatch(em :: contains);
+        assertThat(em.contains(team)).isTrue();
+    }
+
+    @Test
+    void findMemberDtoPage(){
+        //given
+        Team team = new Team("dtoTeam");
+        teamRepository.save(team);
+        memberRepository.save(new Member("dto1" , 10 , team));
+        memberRepository.save(new Member("dto2" , 10 , team));
+        memberRepository.save(new Member("dto3" , 10));
+        em.flush();
+        em.clear();
+        //when
+        Page<MemberDto> page = memberRepository.findMemberDtoPage(PageRequest.of(0 , 2000 , Sort.by("username")));
+        //then
+        assertThat(page.getTotalElements()).isEqualTo(memberRepository.count());
+        assertThat(page.getContent())
+                .filteredOn(dto -> dto.getUsername() != null && dto.getUsername().startsWith("dto"))
+                .extracting(MemberDto::getUsername , MemberDto::getTeamName)
+                .containsExactly(tuple("dto1" , "dtoTeam") , tuple("dto2" , "dtoTeam") , tuple("dto3" , null));
+    }
+
+    @Test
+    void batchFetchLazyTeam(){
+        //given
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Team team = new Team("batchFetchTeam" + i);
+            teamRepository.save(team);
+            for (int j = 0; j < 2; j++) {
+                String name = "batchFetch" + i + "_" + j;
+                memberRepository.save(new Member(name , 10 , team));
+                names.add(name);
+            }
+        }
+        em.flush();
+        em.clear();
+        //when
+        long start = statementCounter.current();
+        List<Member> members = memberRepository.findByNames(names);
+        for (Member member : members) {
+            member.getTeam().getName();
+        }
+        //then 회원 조회 1번 + 팀 배치 조회 1번 (팀 수 만큼 나가면 N+1)
+        assertThat(members.size()).isEqualTo(6);
+        assertThat(statementCounter.current() - start).isBetween(1L , 2L);
+    }
+
+    @Test
+    void findByNamesInChunks(){
+        //given
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            names.add("chunkName" + i);
+        }
+        memberRepository.save(new Member("chunkName0" , 10));
+        memberRepository.save(new Member("chunkName700" , 10));
+        memberRepository.save(new Member("chunkName1199" , 10));
+        names.add("chunkName0");
+        em.flush();
+        em.clear();
+        //when 중복 제거 후 512개씩 3번 조회
+        List<Member> members = memberRepository.findByNames(names);
+        //then
+        assertThat(members).extracting(Member :: getUsername)
+                .containsExactlyInAnyOrder("chunkName0" , "chunkName700" , "chunkName1199");
+    }
+
+    @Test
+    void inClauseParameterPadding(){
+        //given
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        memberRepository.findByNames(List.of("pad1" , "pad2" , "pad3" , "pad4" , "pad5"));
+        long misses = statistics.getQueryPlanCacheMissCount();
+        //when 5개와 7개는 모두 8개로 채워진다
+        memberRepository.findByNames(List.of("pad1" , "pad2" , "pad3" , "pad4" , "pad5" , "pad6" , "pad7"));
+        //then 새 쿼리 플랜을 만들지 않는다
+        assertThat(statistics.getQueryPlanCacheMissCount()).isEqualTo(misses);
+    }
+
+    @Test
+    void nativeProjectionMapper(){
+        //given
+        Team team = new Team("nativeTeam");
+        em.persist(team);
+        Member withTeam = new Member("nativeRowA" , 4321 , team);
+        Member withoutTeam = new Member("nativeRowB" , 4321 , null);
+        em.persist(withTeam);
+        em.persist(withoutTeam);
+        //when flush 하지 않아도 JDBC 조회 전에 리포지토리가 flush 한다
+        Page<MemberProjection> page = memberRepository.findNativeProjectionPage(PageRequest.of(0 , 2 , Sort.by(Sort.Direction.DESC , "id")));
+        long[] ids = memberRepository.findNativeIdsByAge(4321);
+        List<MemberProjection> streamed;
+        try (Stream<MemberProjection> stream = memberRepository.streamNativeProjection(100)) {
+            streamed = stream.filter(p -> p.getUsername() != null && p.getUsername().startsWith("nativeRow")).collect(Collectors.toList());
+        }
+        //then
+        assertThat(page.getContent()).extracting(MemberProjection::getId).containsExactly(withoutTeam.getId() , withTeam.getId());
+        assertThat(page.getContent()).extracting(MemberProjection::getTeamName).containsExactly(null , "nativeTeam");
+        assertThat(Proxy.isProxyClass(page.getContent().get(0).getClass())).isFalse();
+        assertThat(page.getTotalElements()).isEqualTo(memberRepository.count());
+        assertThat(ids).containsExactly(withTeam.getId() , withoutTeam.getId());
+        assertThat(streamed).extracting(MemberProjection::getUsername).containsExactly("nativeRowA" , "nativeRowB");
+        assertThat(streamed.get(0).getTeamName()).isEqualTo("nativeTeam");
+    }
+}
@@ -0,0 +1,52 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//트랜잭션(영속성 컨텍스트)이 매 호출마다 새로 열려야 2차 캐시를 확인할 수 있어서 @Transactional 을 붙이지 않는다
+@SpringBootTest
+class SecondLevelCacheTest{
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Test
+    void teamEntityCache(){
+        //given
+        Team team = teamRepository.save(new Team("cachedTeam"));
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long hitBefore = statistics.getDomainDataRegionStatistics("team").getHitCount();
+        //when
+        teamRepository.findById(team.getId());
+        teamRepository.findById(team.getId());
+        //then
+        assertThat(statistics.getDomainDataRegionStatistics("team").getHitCount()).isGreaterThanOrEqualTo(hitBefore + 2);
+        teamRepository.delete(team);
+    }
+
+    @Test
+    void usernameQueryCache(){
+        //given
+        Member member = memberRepository.save(new Member("cachedMember" , 10));
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        memberRepository.findByUsername("cachedMember");
+        long hitBefore = statistics.getQueryCacheHitCount();
+        //when
+        memberRepository.findByUsername("cachedMember");
+        //then
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hitBefore + 1);
+        memberRepository.delete(member);
+    }
+}